@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Directory implements FileSystemItem {
@@ -20,12 +21,21 @@ public class Directory implements FileSystemItem {
         this.items.remove(item);
     }
 
+    public List<FileSystemItem> getItems() {
+
+        return Collections.unmodifiableList(this.items);
+    }
+
+    @Override
+    public String getName() {
+
+        return this.name;
+    }
+
     @Override
     public void printName() {
 
-        System.out.println("Directory: " + this.name);
-        for (FileSystemItem item : this.items) {
-            item.printName();
-        }
+        // Iterative traversal: deep trees no longer overflow the call stack.
+        new TreePrinter(System.out).print(this);
     }
 }
@@ -6,6 +6,12 @@ public class File implements FileSystemItem {
         this.name = name;
     }
 
+    @Override
+    public String getName() {
+
+        return this.name;
+    }
+
     @Override
     public void printName() {
 
@@ -1,4 +1,5 @@
 public interface FileSystemItem {
 
+    String getName();
     void printName();
 }
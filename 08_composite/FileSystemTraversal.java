@@ -0,0 +1,93 @@
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class FileSystemTraversal implements Iterator<FileSystemItem> {
+
+    public enum Order {
+        DEPTH_FIRST,
+        BREADTH_FIRST
+    }
+
+    private final Order order;
+    private final int maxDepth;
+    private final ArrayDeque<FileSystemItem> pendingItems = new ArrayDeque<>();
+    private final ArrayDeque<Integer> pendingDepths = new ArrayDeque<>();
+    private int currentDepth = -1;
+    private volatile boolean cancelled = false;
+
+    public FileSystemTraversal(FileSystemItem root, Order order) {
+
+        this(root, order, Integer.MAX_VALUE);
+    }
+
+    public FileSystemTraversal(FileSystemItem root, Order order, int maxDepth) {
+
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth must not be negative: " + maxDepth);
+        }
+        this.order = order;
+        this.maxDepth = maxDepth;
+        this.pendingItems.add(root);
+        this.pendingDepths.add(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        return !this.cancelled && !this.pendingItems.isEmpty();
+    }
+
+    @Override
+    public FileSystemItem next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        FileSystemItem item;
+        if (this.order == Order.DEPTH_FIRST) {
+            item = this.pendingItems.pollLast();
+            this.currentDepth = this.pendingDepths.pollLast();
+        } else {
+            item = this.pendingItems.pollFirst();
+            this.currentDepth = this.pendingDepths.pollFirst();
+        }
+        if (item instanceof Directory directory && this.currentDepth < this.maxDepth) {
+            expand(directory.getItems(), this.currentDepth + 1);
+        }
+        return item;
+    }
+
+    // Depth of the item most recently returned by next(); the root is at depth 0.
+    public int depth() {
+
+        return this.currentDepth;
+    }
+
+    public void cancel() {
+
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+
+        return this.cancelled;
+    }
+
+    private void expand(List<FileSystemItem> children, int depth) {
+
+        if (this.order == Order.DEPTH_FIRST) {
+            // Pushed in reverse so the first child is visited first, as the recursive version did.
+            for (int i = children.size() - 1; i >= 0; i--) {
+                this.pendingItems.addLast(children.get(i));
+                this.pendingDepths.addLast(depth);
+            }
+        } else {
+            for (FileSystemItem child : children) {
+                this.pendingItems.addLast(child);
+                this.pendingDepths.addLast(depth);
+            }
+        }
+    }
+}
@@ -16,5 +16,25 @@ public class Main {
         root.add(pictures);
 
         root.printName();
+
+        System.out.println("\n--- Breadth-first, top level only ---");
+        new TreePrinter(System.out).print(root, FileSystemTraversal.Order.BREADTH_FIRST, 1);
+
+        Directory deep = new Directory("level-0");
+        Directory current = deep;
+        for (int i = 1; i <= 100_000; i++) {
+            Directory child = new Directory("level-" + i);
+            current.add(child);
+            current = child;
+        }
+        current.add(new File("bottom.txt"));
+
+        int count = 0;
+        FileSystemTraversal traversal = new FileSystemTraversal(deep, FileSystemTraversal.Order.DEPTH_FIRST);
+        while (traversal.hasNext()) {
+            traversal.next();
+            count++;
+        }
+        System.out.println("\nVisited " + count + " items in a 100000-level tree without recursion.");
     }
 }
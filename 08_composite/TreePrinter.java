@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+public class TreePrinter {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final StringBuilder buffer;
+    private final int bufferSize;
+    // Reused for every flush, so printing a large tree does not allocate per chunk.
+    private final CharsetEncoder encoder;
+    private final ByteBuffer bytes;
+    // Set by print() and read by cancel(), which may run on another thread.
+    private volatile FileSystemTraversal traversal;
+
+    // Encodes names the way the stream would, e.g. System.out in the console's charset.
+    public TreePrinter(PrintStream out) {
+
+        this(out, DEFAULT_BUFFER_SIZE, out.charset());
+    }
+
+    public TreePrinter(OutputStream out, int bufferSize) {
+
+        this(out, bufferSize, StandardCharsets.UTF_8);
+    }
+
+    // Names the charset cannot represent are written as its replacement, usually '?'.
+    public TreePrinter(OutputStream out, int bufferSize, Charset charset) {
+
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        this.out = out;
+        this.bufferSize = bufferSize;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = new StringBuilder(bufferSize);
+        this.bytes = ByteBuffer.allocate(Math.max(64, bufferSize));
+    }
+
+    public void print(FileSystemItem root) {
+
+        print(root, FileSystemTraversal.Order.DEPTH_FIRST, Integer.MAX_VALUE);
+    }
+
+    public void print(FileSystemItem root, FileSystemTraversal.Order order, int maxDepth) {
+
+        FileSystemTraversal traversal = new FileSystemTraversal(root, order, maxDepth);
+        this.traversal = traversal;
+        try {
+            while (traversal.hasNext()) {
+                FileSystemItem item = traversal.next();
+                this.buffer.append(item instanceof Directory ? "Directory: " : "File: ")
+                        .append(item.getName())
+                        .append(System.lineSeparator());
+                if (this.buffer.length() >= this.bufferSize) {
+                    flush();
+                }
+            }
+        } finally {
+            flush();
+        }
+    }
+
+    // Stops the traversal in progress; lines already buffered are still written.
+    public void cancel() {
+
+        FileSystemTraversal current = this.traversal;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    private void flush() {
+
+        if (this.buffer.length() == 0) {
+            return;
+        }
+        try {
+            CharBuffer chars = CharBuffer.wrap(this.buffer);
+            this.encoder.reset();
+            CoderResult result;
+            do {
+                result = this.encoder.encode(chars, this.bytes, true);
+                if (result.isUnderflow()) {
+                    result = this.encoder.flush(this.bytes);
+                }
+                writeBytes();
+            } while (result.isOverflow());
+            this.out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            this.buffer.setLength(0);
+        }
+    }
+
+    private void writeBytes() throws IOException {
+
+        this.out.write(this.bytes.array(), 0, this.bytes.position());
+        this.bytes.clear();
+    }
+}
@@ -0,0 +1,61 @@
+import java.util.Random;
+
+public class BulkPricingBenchmark {
+    private static final int ORDERS = 5_000_000;
+    private static final int MAX_ADD_ONS = 6;
+
+    public static void main(String[] args) {
+
+        CoffeePricingEngine engine = new CoffeePricingEngine();
+        int milk = engine.register(WithMilk::new);
+        int sugar = engine.register(WithSugar::new);
+        int[] codes = {milk, sugar};
+
+        Random random = new Random(42);
+        int[] orderStarts = new int[ORDERS + 1];
+        int[] addOnCodes = new int[ORDERS * MAX_ADD_ONS];
+        int cursor = 0;
+        for (int order = 0; order < ORDERS; order++) {
+            orderStarts[order] = cursor;
+            int addOns = random.nextInt(MAX_ADD_ONS + 1);
+            for (int i = 0; i < addOns; i++) {
+                addOnCodes[cursor++] = codes[random.nextInt(codes.length)];
+            }
+        }
+        orderStarts[ORDERS] = cursor;
+
+        long start = System.nanoTime();
+        long[] objectTotals = new long[ORDERS];
+        for (int order = 0; order < ORDERS; order++) {
+            Coffee coffee = engine.toCoffee(addOnCodes, orderStarts[order], orderStarts[order + 1]);
+            objectTotals[order] = CoffeePricingEngine.toCents(coffee.getCost());
+        }
+        report("object graph", start);
+
+        for (int run = 0; run < 3; run++) {
+            engine.priceAll(addOnCodes, orderStarts, false);
+            engine.priceAll(addOnCodes, orderStarts, true);
+        }
+
+        start = System.nanoTime();
+        long[] sequentialTotals = engine.priceAll(addOnCodes, orderStarts, false);
+        report("bulk sequential", start);
+
+        start = System.nanoTime();
+        long[] parallelTotals = engine.priceAll(addOnCodes, orderStarts, true);
+        report("bulk parallel", start);
+
+        for (int order = 0; order < ORDERS; order++) {
+            if (objectTotals[order] != sequentialTotals[order] || objectTotals[order] != parallelTotals[order]) {
+                throw new IllegalStateException("Price mismatch for order " + order);
+            }
+        }
+        System.out.println("All " + ORDERS + " totals match the object-graph prices.");
+    }
+
+    private static void report(String label, long start) {
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%-16s %6d ms for %d orders%n", label, elapsedMillis, ORDERS);
+    }
+}
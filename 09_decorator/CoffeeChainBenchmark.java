@@ -0,0 +1,46 @@
+public class CoffeeChainBenchmark {
+    private static final int[] DEPTHS = {1, 5, 10, 20, 40};
+    private static final int CALLS = 2_000_000;
+
+    public static void main(String[] args) {
+
+        System.out.printf("%6s %16s %16s%n", "depth", "chain ns/call", "fused ns/call");
+        for (int depth : DEPTHS) {
+            Coffee chain = buildChain(depth);
+            Coffee fused = CoffeeFreezer.freeze(chain);
+
+            // Warm-up runs so the JIT has compiled both paths before timing.
+            measure(chain);
+            measure(fused);
+
+            double chainNanos = measure(chain);
+            double fusedNanos = measure(fused);
+            System.out.printf("%6d %16.2f %16.2f%n", depth, chainNanos, fusedNanos);
+        }
+        System.out.println("Distinct fused chains: " + CoffeeFreezer.fusedCount());
+    }
+
+    private static Coffee buildChain(int depth) {
+
+        Coffee coffee = new SimpleCoffee();
+        for (int i = 0; i < depth; i++) {
+            coffee = (i % 2 == 0) ? new WithMilk(coffee) : new WithSugar(coffee);
+        }
+        return coffee;
+    }
+
+    private static double measure(Coffee coffee) {
+
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            checksum += (long) coffee.getCost();
+            checksum += coffee.getDescription().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checksum == 42) {
+            System.out.println();
+        }
+        return (double) elapsed / CALLS;
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class CoffeeFreezer {
+    private static final Map<ChainKey, FusedCoffee> fusedChains = new ConcurrentHashMap<>();
+
+    private CoffeeFreezer() {
+    }
+
+    // Chains share one FusedCoffee when they have the same layer types in the same order and come
+    // to the same cost and description. A fused coffee holds nothing else, so decorators with
+    // state (a number of shots, say) only share when that state gives the same result.
+    public static Coffee freeze(Coffee coffee) {
+
+        if (coffee instanceof FusedCoffee) {
+            return coffee;
+        }
+        ChainKey chain = new ChainKey(layersOf(coffee), coffee.getCost(), coffee.getDescription());
+        return fusedChains.computeIfAbsent(chain,
+                key -> new FusedCoffee(key.cost(), key.description(), key.layers()));
+    }
+
+    public static int fusedCount() {
+
+        return fusedChains.size();
+    }
+
+    private static List<Class<?>> layersOf(Coffee coffee) {
+
+        List<Class<?>> layers = new ArrayList<>();
+        Coffee current = coffee;
+        while (current instanceof CoffeeDecorator decorator) {
+            layers.add(decorator.getClass());
+            current = decorator.decoratedCoffee;
+        }
+        if (current instanceof FusedCoffee fused) {
+            for (int i = fused.getLayers().size() - 1; i >= 0; i--) {
+                layers.add(fused.getLayers().get(i));
+            }
+        } else {
+            layers.add(current.getClass());
+        }
+        Collections.reverse(layers);
+        return List.copyOf(layers);
+    }
+
+    private record ChainKey(List<Class<?>> layers, double cost, String description) {
+    }
+}
@@ -0,0 +1,80 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+public class CoffeePricingEngine {
+    private static final int PARALLEL_CHUNK = 1 << 16;
+
+    private final long baseCents;
+    private final List<UnaryOperator<Coffee>> decorators = new ArrayList<>();
+    private long[] deltaCents = new long[0];
+
+    public CoffeePricingEngine() {
+
+        this.baseCents = toCents(new SimpleCoffee().getCost());
+    }
+
+    // Registers a decorator type and returns the add-on code used to reference it in orders.
+    // The cost delta is measured once from the decorator itself, so the table cannot drift
+    // from the prices the object graph reports.
+    public int register(UnaryOperator<Coffee> decorator) {
+
+        Coffee base = new SimpleCoffee();
+        long delta = toCents(decorator.apply(base).getCost()) - toCents(base.getCost());
+        int code = this.decorators.size();
+        this.decorators.add(decorator);
+        long[] grown = new long[code + 1];
+        System.arraycopy(this.deltaCents, 0, grown, 0, code);
+        grown[code] = delta;
+        this.deltaCents = grown;
+        return code;
+    }
+
+    // Orders are stored back to back in addOnCodes; order i spans
+    // [orderStarts[i], orderStarts[i + 1]). The result holds one total in cents per order.
+    public long[] priceAll(int[] addOnCodes, int[] orderStarts, boolean parallel) {
+
+        int orderCount = orderStarts.length - 1;
+        long[] totals = new long[orderCount];
+        if (parallel) {
+            int chunks = (orderCount + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int from = chunk * PARALLEL_CHUNK;
+                int to = Math.min(orderCount, from + PARALLEL_CHUNK);
+                priceRange(addOnCodes, orderStarts, totals, from, to);
+            });
+        } else {
+            priceRange(addOnCodes, orderStarts, totals, 0, orderCount);
+        }
+        return totals;
+    }
+
+    public Coffee toCoffee(int[] addOnCodes, int from, int to) {
+
+        Coffee coffee = new SimpleCoffee();
+        for (int i = from; i < to; i++) {
+            coffee = this.decorators.get(addOnCodes[i]).apply(coffee);
+        }
+        return coffee;
+    }
+
+    public static long toCents(double dollars) {
+
+        return Math.round(dollars * 100);
+    }
+
+    private void priceRange(int[] addOnCodes, int[] orderStarts, long[] totals, int from, int to) {
+
+        long[] deltas = this.deltaCents;
+        long base = this.baseCents;
+        for (int order = from; order < to; order++) {
+            long total = base;
+            int end = orderStarts[order + 1];
+            for (int i = orderStarts[order]; i < end; i++) {
+                total += deltas[addOnCodes[i]];
+            }
+            totals[order] = total;
+        }
+    }
+}
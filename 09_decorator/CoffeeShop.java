@@ -13,5 +13,39 @@ public class CoffeeShop {
         Coffee anotherCoffee = new WithSugar(new WithMilk(new SimpleCoffee()));
         System.out.println("Final order: " + anotherCoffee.getDescription());
         System.out.println("Final cost: " + anotherCoffee.getCost());
+
+        Coffee frozen = CoffeeFreezer.freeze(anotherCoffee);
+        System.out.println("Frozen order: " + frozen.getDescription() + " costs $" + frozen.getCost());
+        System.out.println("Same chain shares one frozen coffee: " + (frozen == CoffeeFreezer.freeze(myCoffee)));
+
+        Coffee single = CoffeeFreezer.freeze(new ExtraShots(new SimpleCoffee(), 1));
+        Coffee triple = CoffeeFreezer.freeze(new ExtraShots(new SimpleCoffee(), 3));
+        if (single == triple || single.getCost() == triple.getCost()) {
+            throw new IllegalStateException("Chains with different shot counts were frozen together");
+        }
+        System.out.println("Frozen with extra shots: $" + single.getCost() + " and $" + triple.getCost());
+    }
+
+    // A decorator with state of its own, which freezing must not share across shot counts.
+    private static class ExtraShots extends CoffeeDecorator {
+        private final int shots;
+
+        private ExtraShots(Coffee decoratedCoffee, int shots) {
+
+            super(decoratedCoffee);
+            this.shots = shots;
+        }
+
+        @Override
+        public double getCost() {
+
+            return super.getCost() + 0.75 * this.shots;
+        }
+
+        @Override
+        public String getDescription() {
+
+            return super.getDescription() + ", with " + this.shots + " extra shots.";
+        }
     }
 }
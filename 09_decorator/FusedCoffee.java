@@ -0,0 +1,32 @@
+import java.util.List;
+
+public final class FusedCoffee implements Coffee {
+    private final double cost;
+    private final String description;
+    private final List<Class<?>> layers;
+
+    FusedCoffee(double cost, String description, List<Class<?>> layers) {
+
+        this.cost = cost;
+        this.description = description;
+        this.layers = layers;
+    }
+
+    @Override
+    public double getCost() {
+
+        return this.cost;
+    }
+
+    @Override
+    public String getDescription() {
+
+        return this.description;
+    }
+
+    // Concrete types of the frozen chain, innermost coffee first.
+    List<Class<?>> getLayers() {
+
+        return this.layers;
+    }
+}
@@ -0,0 +1,161 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Steps are named "device.command". Consecutive steps on the same device whose dependencies are
+// already satisfied by the previous step are coalesced into one batch and issued together.
+public class DeviceStepGraph {
+    private final List<Batch> batches = new ArrayList<>();
+    private final Map<String, Set<Batch>> completedBy = new HashMap<>();
+    private int commandCount = 0;
+    private int skippedCount = 0;
+
+    // Dependencies must be declared before the steps that use them, which keeps the graph acyclic.
+    public DeviceStepGraph step(String name, Runnable action, String... dependsOn) {
+
+        return step(name, action, true, dependsOn);
+    }
+
+    // A step that is not needed is skipped; anything depending on it waits for its dependencies instead.
+    public DeviceStepGraph step(String name, Runnable action, boolean needed, String... dependsOn) {
+
+        int separator = name.indexOf('.');
+        if (separator <= 0 || separator == name.length() - 1) {
+            throw new IllegalArgumentException("Step name must look like \"device.command\": " + name);
+        }
+        if (this.completedBy.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate step: " + name);
+        }
+        Set<Batch> dependencies = new LinkedHashSet<>();
+        for (String dependency : dependsOn) {
+            Set<Batch> batches = this.completedBy.get(dependency);
+            if (batches == null) {
+                throw new IllegalArgumentException("Step " + name + " depends on unknown step " + dependency);
+            }
+            dependencies.addAll(batches);
+        }
+        if (!needed) {
+            this.skippedCount++;
+            this.completedBy.put(name, dependencies);
+            return this;
+        }
+        this.commandCount++;
+        String device = name.substring(0, separator);
+        Batch last = this.batches.isEmpty() ? null : this.batches.get(this.batches.size() - 1);
+        if (last != null && last.device.equals(device) && coveredBy(last, dependencies)) {
+            last.names.add(name);
+            last.actions.add(action);
+            this.completedBy.put(name, Set.of(last));
+            return this;
+        }
+        Batch batch = new Batch(device, dependencies);
+        batch.names.add(name);
+        batch.actions.add(action);
+        this.batches.add(batch);
+        this.completedBy.put(name, Set.of(batch));
+        return this;
+    }
+
+    public int commandCount() {
+
+        return this.commandCount;
+    }
+
+    public int skippedCount() {
+
+        return this.skippedCount;
+    }
+
+    public int batchCount() {
+
+        return this.batches.size();
+    }
+
+    public void runSequentially() {
+
+        for (Batch batch : this.batches) {
+            batch.run();
+        }
+    }
+
+    // Runs every batch as soon as its dependencies finish. A coalesced batch gets stepTimeout for
+    // each of its steps; a batch that exceeds that fails the whole run, though the device call
+    // itself is not interrupted.
+    public void runConcurrently(ExecutorService executor, Duration stepTimeout) {
+
+        Map<Batch, CompletableFuture<Void>> futures = new IdentityHashMap<>();
+        for (Batch batch : this.batches) {
+            List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+            for (Batch dependency : batch.dependsOn) {
+                dependencies.add(futures.get(dependency));
+            }
+            CompletableFuture<Void> future = CompletableFuture
+                    .allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+                    .thenCompose(ignored -> CompletableFuture
+                            .runAsync(batch::run, executor)
+                            .orTimeout(stepTimeout.toMillis() * batch.actions.size(), TimeUnit.MILLISECONDS)
+                            .exceptionally(failure -> {
+                                throw new CompletionException(
+                                        new IllegalStateException("Step " + batch.names + " failed", unwrap(failure)));
+                            }));
+            futures.put(batch, future);
+        }
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static boolean coveredBy(Batch batch, Set<Batch> dependencies) {
+
+        for (Batch dependency : dependencies) {
+            if (dependency != batch && !batch.dependsOn.contains(dependency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+
+        Throwable current = failure;
+        while (current instanceof CompletionException && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    private static class Batch {
+        private final String device;
+        private final Set<Batch> dependsOn;
+        private final List<String> names = new ArrayList<>();
+        private final List<Runnable> actions = new ArrayList<>();
+
+        private Batch(String device, Set<Batch> dependsOn) {
+
+            this.device = device;
+            this.dependsOn = dependsOn;
+        }
+
+        private void run() {
+
+            for (Runnable action : this.actions) {
+                action.run();
+            }
+        }
+    }
+}
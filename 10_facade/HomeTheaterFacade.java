@@ -1,8 +1,23 @@
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class HomeTheaterFacade {
+    private static final Duration DEFAULT_STEP_TIMEOUT = Duration.ofSeconds(5);
+    private static final int MOVIE_VOLUME = 5;
+
     private Amplifier amplifier;
     private DvdPlayer dvdPlayer;
     private Projector projector;
     private Screen screen;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Null means the devices may have been changed behind the facade's back.
+    private TheaterState state = null;
+    private long issuedCalls = 0;
+    private long skippedCalls = 0;
+    private long issuedBatches = 0;
 
     public HomeTheaterFacade(Amplifier amplifier, DvdPlayer dvdPlayer, Projector projector, Screen screen) {
 
@@ -15,22 +30,117 @@ public class HomeTheaterFacade {
     public void watchMovie(String movie) {
 
         System.out.println("Get ready to watch a movie...");
-        screen.down();
-        projector.on();
-        amplifier.on();
-        amplifier.setDvd(dvdPlayer);
-        amplifier.setVolume(5);
-        dvdPlayer.on();
-        dvdPlayer.play(movie);
+        TheaterState target = TheaterState.watching(movie, MOVIE_VOLUME);
+        run(target, watchMovieSteps(movie, target), false, null);
+    }
+
+    public void watchMovieConcurrently(String movie) {
+
+        watchMovieConcurrently(movie, DEFAULT_STEP_TIMEOUT);
+    }
+
+    public void watchMovieConcurrently(String movie, Duration stepTimeout) {
+
+        System.out.println("Get ready to watch a movie...");
+        TheaterState target = TheaterState.watching(movie, MOVIE_VOLUME);
+        run(target, watchMovieSteps(movie, target), true, stepTimeout);
     }
 
     public void endMovie() {
 
         System.out.println("\nShutting movie theater down...");
-        dvdPlayer.stop();
-        dvdPlayer.off();
-        amplifier.off();
-        projector.off();
-        screen.up();
+        run(TheaterState.OFF, endMovieSteps(TheaterState.OFF), false, null);
+    }
+
+    public void endMovieConcurrently() {
+
+        endMovieConcurrently(DEFAULT_STEP_TIMEOUT);
+    }
+
+    public void endMovieConcurrently(Duration stepTimeout) {
+
+        System.out.println("\nShutting movie theater down...");
+        run(TheaterState.OFF, endMovieSteps(TheaterState.OFF), true, stepTimeout);
+    }
+
+    // Forgets the tracked device state, so the next call issues every command again.
+    public void resetState() {
+
+        this.state = null;
+    }
+
+    public TheaterState getState() {
+
+        return this.state;
+    }
+
+    public long getIssuedCalls() {
+
+        return this.issuedCalls;
+    }
+
+    public long getSkippedCalls() {
+
+        return this.skippedCalls;
+    }
+
+    public long getIssuedBatches() {
+
+        return this.issuedBatches;
+    }
+
+    private void run(TheaterState target, DeviceStepGraph steps, boolean concurrently, Duration stepTimeout) {
+
+        this.issuedCalls += steps.commandCount();
+        this.skippedCalls += steps.skippedCount();
+        this.issuedBatches += steps.batchCount();
+        try {
+            if (concurrently) {
+                steps.runConcurrently(this.executor, stepTimeout);
+            } else {
+                steps.runSequentially();
+            }
+            this.state = target;
+        } catch (RuntimeException e) {
+            this.state = null;
+            throw e;
+        }
+    }
+
+    private DeviceStepGraph watchMovieSteps(String movie, TheaterState target) {
+
+        Set<String> needed = neededCommands(target);
+        return new DeviceStepGraph()
+                .step("screen.down", () -> screen.down(), isNeeded(needed, "screen.down"))
+                .step("projector.on", () -> projector.on(), isNeeded(needed, "projector.on"))
+                .step("amplifier.on", () -> amplifier.on(), isNeeded(needed, "amplifier.on"))
+                .step("amplifier.setDvd", () -> amplifier.setDvd(dvdPlayer), isNeeded(needed, "amplifier.setDvd"),
+                        "amplifier.on")
+                .step("amplifier.setVolume", () -> amplifier.setVolume(MOVIE_VOLUME),
+                        isNeeded(needed, "amplifier.setVolume"), "amplifier.setDvd")
+                .step("dvdPlayer.on", () -> dvdPlayer.on(), isNeeded(needed, "dvdPlayer.on"), "amplifier.setDvd")
+                .step("dvdPlayer.play", () -> dvdPlayer.play(movie), isNeeded(needed, "dvdPlayer.play"),
+                        "screen.down", "projector.on", "amplifier.setVolume", "dvdPlayer.on");
+    }
+
+    private DeviceStepGraph endMovieSteps(TheaterState target) {
+
+        Set<String> needed = neededCommands(target);
+        return new DeviceStepGraph()
+                .step("dvdPlayer.stop", () -> dvdPlayer.stop(), isNeeded(needed, "dvdPlayer.stop"))
+                .step("dvdPlayer.off", () -> dvdPlayer.off(), isNeeded(needed, "dvdPlayer.off"), "dvdPlayer.stop")
+                .step("amplifier.off", () -> amplifier.off(), isNeeded(needed, "amplifier.off"), "dvdPlayer.stop")
+                .step("projector.off", () -> projector.off(), isNeeded(needed, "projector.off"), "dvdPlayer.stop")
+                .step("screen.up", () -> screen.up(), isNeeded(needed, "screen.up"), "projector.off");
+    }
+
+    private Set<String> neededCommands(TheaterState target) {
+
+        return this.state == null ? null : TheaterState.commandsBetween(this.state, target);
+    }
+
+    private static boolean isNeeded(Set<String> needed, String command) {
+
+        return needed == null || needed.contains(command);
     }
 }
@@ -8,6 +8,13 @@ public class HomeTheaterTestDrive {
 
         HomeTheaterFacade homeTheaterFacade = new HomeTheaterFacade(amplifier, dvdPlayer, projector, screen);
         homeTheaterFacade.watchMovie("Raiders of the Lost Ark");
+        homeTheaterFacade.watchMovie("Raiders of the Lost Ark");
+        homeTheaterFacade.watchMovie("Temple of Doom");
+        homeTheaterFacade.endMovie();
         homeTheaterFacade.endMovie();
+
+        System.out.println("\nDevice calls issued: " + homeTheaterFacade.getIssuedCalls()
+                + " in " + homeTheaterFacade.getIssuedBatches() + " batches, skipped: "
+                + homeTheaterFacade.getSkippedCalls());
     }
 }
@@ -0,0 +1,61 @@
+public class TheaterLatencyReport {
+    private static final long DEVICE_LATENCY_MILLIS = 200;
+
+    public static void main(String[] args) {
+
+        HomeTheaterFacade homeTheater = new HomeTheaterFacade(
+                new Amplifier() {
+                    @Override public void on() { pause(); super.on(); }
+                    @Override public void setDvd(DvdPlayer dvdPlayer) { pause(); super.setDvd(dvdPlayer); }
+                    @Override public void setVolume(int level) { pause(); super.setVolume(level); }
+                    @Override public void off() { pause(); super.off(); }
+                },
+                new DvdPlayer() {
+                    @Override public void on() { pause(); super.on(); }
+                    @Override public void play(String movie) { pause(); super.play(movie); }
+                    @Override public void stop() { pause(); super.stop(); }
+                    @Override public void off() { pause(); super.off(); }
+                },
+                new Projector() {
+                    @Override public void on() { pause(); super.on(); }
+                    @Override public void off() { pause(); super.off(); }
+                },
+                new Screen() {
+                    @Override public void down() { pause(); super.down(); }
+                    @Override public void up() { pause(); super.up(); }
+                });
+
+        long sequentialStart = System.nanoTime();
+        homeTheater.watchMovie("Raiders of the Lost Ark");
+        long sequentialWatch = elapsedMillis(sequentialStart);
+        sequentialStart = System.nanoTime();
+        homeTheater.endMovie();
+        long sequentialEnd = elapsedMillis(sequentialStart);
+
+        long concurrentStart = System.nanoTime();
+        homeTheater.watchMovieConcurrently("Raiders of the Lost Ark");
+        long concurrentWatch = elapsedMillis(concurrentStart);
+        concurrentStart = System.nanoTime();
+        homeTheater.endMovieConcurrently();
+        long concurrentEnd = elapsedMillis(concurrentStart);
+
+        System.out.println("\n--- Latency report (" + DEVICE_LATENCY_MILLIS + " ms per device call) ---");
+        System.out.printf("%-12s %12s %12s%n", "", "sequential", "concurrent");
+        System.out.printf("%-12s %9d ms %9d ms%n", "watchMovie", sequentialWatch, concurrentWatch);
+        System.out.printf("%-12s %9d ms %9d ms%n", "endMovie", sequentialEnd, concurrentEnd);
+    }
+
+    private static void pause() {
+
+        try {
+            Thread.sleep(DEVICE_LATENCY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long elapsedMillis(long start) {
+
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+public record TheaterState(boolean screenDown, boolean projectorOn, boolean amplifierOn, boolean dvdSelected,
+                           int volume, boolean dvdPlayerOn, String movie) {
+
+    public static final TheaterState OFF = new TheaterState(false, false, false, false, 0, false, null);
+
+    public static TheaterState watching(String movie, int volume) {
+
+        return new TheaterState(true, true, true, true, volume, true, movie);
+    }
+
+    // Names of the device commands needed to move from one state to another.
+    public static Set<String> commandsBetween(TheaterState from, TheaterState to) {
+
+        Set<String> commands = new LinkedHashSet<>();
+        if (from.movie != null && to.movie == null) {
+            commands.add("dvdPlayer.stop");
+        }
+        if (from.screenDown != to.screenDown) {
+            commands.add(to.screenDown ? "screen.down" : "screen.up");
+        }
+        if (from.projectorOn != to.projectorOn) {
+            commands.add(to.projectorOn ? "projector.on" : "projector.off");
+        }
+        if (from.amplifierOn != to.amplifierOn) {
+            commands.add(to.amplifierOn ? "amplifier.on" : "amplifier.off");
+        }
+        if (to.dvdSelected && (!from.dvdSelected || !from.amplifierOn)) {
+            commands.add("amplifier.setDvd");
+        }
+        if (to.amplifierOn && (from.volume != to.volume || !from.amplifierOn)) {
+            commands.add("amplifier.setVolume");
+        }
+        if (from.dvdPlayerOn != to.dvdPlayerOn) {
+            commands.add(to.dvdPlayerOn ? "dvdPlayer.on" : "dvdPlayer.off");
+        }
+        if (to.movie != null && !Objects.equals(from.movie, to.movie)) {
+            commands.add("dvdPlayer.play");
+        }
+        return commands;
+    }
+}
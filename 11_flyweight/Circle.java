@@ -12,4 +12,12 @@ public class Circle implements Shape {
 
         System.out.println("Drawing a " + this.color + " circle at (" + x + ", " + y + ") with radius " + radius);
     }
+
+    // Approximate size on a 64-bit JVM with compressed oops: a 12-byte header and the color
+    // reference, rounded up to 8 bytes. The color String belongs to the caller, who passes the same
+    // instance whether circles are shared or not, so it is not counted.
+    long estimatedBytes() {
+
+        return 16;
+    }
 }
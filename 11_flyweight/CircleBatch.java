@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Extrinsic state kept column by column in primitive arrays; the flyweights are referenced by index.
+public class CircleBatch {
+    private static final int PARALLEL_CHUNK = 1 << 16;
+
+    private final List<Shape> palette = new ArrayList<>();
+    private final Map<Shape, Integer> paletteIndex = new IdentityHashMap<>();
+    private int[] xs;
+    private int[] ys;
+    private int[] radii;
+    private int[] colorIndexes;
+    private int size = 0;
+
+    public CircleBatch(int initialCapacity) {
+
+        int capacity = Math.max(initialCapacity, 16);
+        this.xs = new int[capacity];
+        this.ys = new int[capacity];
+        this.radii = new int[capacity];
+        this.colorIndexes = new int[capacity];
+    }
+
+    public void add(Shape flyweight, int x, int y, int radius) {
+
+        if (this.size == this.xs.length) {
+            grow();
+        }
+        this.xs[this.size] = x;
+        this.ys[this.size] = y;
+        this.radii[this.size] = radius;
+        this.colorIndexes[this.size] = indexOf(flyweight);
+        this.size++;
+    }
+
+    public int size() {
+
+        return this.size;
+    }
+
+    public void drawAll() {
+
+        drawRange(0, this.size);
+    }
+
+    // Splits the arrays into contiguous chunks, so each worker still reads them sequentially.
+    public void drawAll(boolean parallel) {
+
+        if (!parallel) {
+            drawAll();
+            return;
+        }
+        int chunks = (this.size + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = chunk * PARALLEL_CHUNK;
+            drawRange(from, Math.min(this.size, from + PARALLEL_CHUNK));
+        });
+    }
+
+    // Bytes held by the extrinsic-state arrays, including unused capacity.
+    public long estimatedBytes() {
+
+        return 4L * Integer.BYTES * this.xs.length;
+    }
+
+    private void drawRange(int from, int to) {
+
+        Shape[] shapes = this.palette.toArray(new Shape[0]);
+        int[] xs = this.xs;
+        int[] ys = this.ys;
+        int[] radii = this.radii;
+        int[] colorIndexes = this.colorIndexes;
+        for (int i = from; i < to; i++) {
+            shapes[colorIndexes[i]].draw(xs[i], ys[i], radii[i]);
+        }
+    }
+
+    private int indexOf(Shape flyweight) {
+
+        Integer index = this.paletteIndex.get(flyweight);
+        if (index == null) {
+            index = this.palette.size();
+            this.palette.add(flyweight);
+            this.paletteIndex.put(flyweight, index);
+        }
+        return index;
+    }
+
+    private void grow() {
+
+        int capacity = this.xs.length + (this.xs.length >> 1);
+        this.xs = Arrays.copyOf(this.xs, capacity);
+        this.ys = Arrays.copyOf(this.ys, capacity);
+        this.radii = Arrays.copyOf(this.radii, capacity);
+        this.colorIndexes = Arrays.copyOf(this.colorIndexes, capacity);
+    }
+}
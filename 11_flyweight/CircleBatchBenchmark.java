@@ -0,0 +1,65 @@
+import java.util.concurrent.atomic.LongAdder;
+
+public class CircleBatchBenchmark {
+    private static final int DEFAULT_INSTANCES = 5_000_000;
+
+    public static void main(String[] args) {
+
+        int instances = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_INSTANCES;
+        LongAdder drawn = new LongAdder();
+        Shape[] palette = new Shape[8];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = (x, y, radius) -> drawn.add(x + y + radius);
+        }
+
+        long before = usedHeap();
+        PositionedCircle[] objects = new PositionedCircle[instances];
+        for (int i = 0; i < instances; i++) {
+            objects[i] = new PositionedCircle(palette[i % palette.length], i % 1000, i % 700, 100);
+        }
+        long objectBytes = usedHeap() - before;
+
+        before = usedHeap();
+        CircleBatch batch = new CircleBatch(instances);
+        for (int i = 0; i < instances; i++) {
+            batch.add(palette[i % palette.length], i % 1000, i % 700, 100);
+        }
+        long batchBytes = usedHeap() - before;
+
+        System.out.printf("%d instances%n", instances);
+        System.out.printf("object per instance: %6.1f bytes%n", (double) objectBytes / instances);
+        System.out.printf("batch per instance:  %6.1f bytes (arrays hold %d bytes)%n",
+                (double) batchBytes / instances, batch.estimatedBytes());
+
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            for (PositionedCircle circle : objects) {
+                circle.shape().draw(circle.x(), circle.y(), circle.radius());
+            }
+            long objectMillis = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            batch.drawAll();
+            long batchMillis = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            batch.drawAll(true);
+            long parallelMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("run %d: objects %d ms, batch %d ms, parallel batch %d ms%n",
+                    run, objectMillis, batchMillis, parallelMillis);
+        }
+        System.out.println("checksum " + drawn.sum());
+    }
+
+    private static long usedHeap() {
+
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private record PositionedCircle(Shape shape, int x, int y, int radius) {
+    }
+}
@@ -8,6 +8,9 @@ public class FlyweightDemo {
             Circle circle = (Circle) ShapeFactory.getCircle(getRandomColor());
             circle.draw(getRandomX(), getRandomY(), 100);
         }
+        FlyweightStats stats = ShapeFactory.getStats();
+        System.out.println("Live flyweights: " + stats.size() + ", share ratio: " + stats.shareRatio()
+                + ", retained: ~" + stats.retainedBytes() + " bytes, saved: ~" + stats.estimatedSavedBytes() + " bytes");
     }
 
     private static int getRandomX() {
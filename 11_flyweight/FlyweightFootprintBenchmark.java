@@ -0,0 +1,73 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.ref.Reference;
+
+public class FlyweightFootprintBenchmark {
+    private static final String[] colors = {"Red", "Green", "Blue", "Yellow", "Black"};
+    private static final long[] DRAWS = {1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+    private static final long UNSHARED_BYTES_PER_DRAW = 4 + 16;
+
+    public static void main(String[] args) {
+
+        PrintStream console = System.out;
+        // Circle announces every construction; keep the console for the report only.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            // Warm-up so class loading and JIT activity do not land in the first row.
+            measureShared(10_000);
+            measureUnshared(10_000);
+
+            // The estimate comes from FlyweightStats; the measured saving is the heap difference.
+            console.printf("%12s %14s %14s %12s %14s %14s%n", "draws", "shared heap", "unshared heap", "share ratio",
+                    "est. saved", "measured saved");
+            for (long draws : DRAWS) {
+                if (draws > Integer.MAX_VALUE || draws * UNSHARED_BYTES_PER_DRAW > Runtime.getRuntime().maxMemory() / 2) {
+                    console.printf("%12d %s%n", draws, "skipped: raise -Xmx to run this size");
+                    continue;
+                }
+                long sharedBytes = measureShared((int) draws);
+                FlyweightStats stats = ShapeFactory.getStats();
+                long unsharedBytes = measureUnshared((int) draws);
+                console.printf("%12d %11d KB %11d KB %12.1f %11d KB %11d KB%n",
+                        draws, sharedBytes / 1024, unsharedBytes / 1024, stats.shareRatio(),
+                        stats.estimatedSavedBytes() / 1024, (unsharedBytes - sharedBytes) / 1024);
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static long measureShared(int draws) {
+
+        ShapeFactory.configure(FlyweightRegistry.EvictionPolicy.NONE, 0);
+        long before = usedHeap();
+        Shape[] scene = new Shape[draws];
+        for (int i = 0; i < draws; i++) {
+            scene[i] = ShapeFactory.getCircle(colors[i % colors.length]);
+        }
+        long used = usedHeap() - before;
+        Reference.reachabilityFence(scene);
+        return used;
+    }
+
+    private static long measureUnshared(int draws) {
+
+        long before = usedHeap();
+        Shape[] scene = new Shape[draws];
+        for (int i = 0; i < draws; i++) {
+            scene[i] = new Circle(colors[i % colors.length]);
+        }
+        long used = usedHeap() - before;
+        Reference.reachabilityFence(scene);
+        return used;
+    }
+
+    private static long usedHeap() {
+
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
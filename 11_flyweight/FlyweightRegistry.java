@@ -0,0 +1,220 @@
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+public abstract class FlyweightRegistry<K, V> {
+
+    public enum EvictionPolicy {
+        NONE,
+        LRU,
+        WEAK_VALUES
+    }
+
+    protected final Function<K, V> factory;
+    protected final ToLongFunction<V> sizer;
+    protected final LongAdder creations = new LongAdder();
+    protected final LongAdder hits = new LongAdder();
+    protected final LongAdder evictions = new LongAdder();
+    protected final LongAdder retainedBytes = new LongAdder();
+
+    protected FlyweightRegistry(Function<K, V> factory, ToLongFunction<V> sizer) {
+
+        this.factory = factory;
+        this.sizer = sizer;
+    }
+
+    public static <K, V> FlyweightRegistry<K, V> create(EvictionPolicy policy, int maxSize, Function<K, V> factory) {
+
+        return create(policy, maxSize, factory, value -> 0L);
+    }
+
+    // The sizer estimates the bytes each flyweight retains; it feeds FlyweightStats.retainedBytes().
+    public static <K, V> FlyweightRegistry<K, V> create(EvictionPolicy policy, int maxSize, Function<K, V> factory,
+                                                        ToLongFunction<V> sizer) {
+
+        switch (policy) {
+            case NONE:
+                return new Unbounded<>(factory, sizer);
+            case LRU:
+                return new Lru<>(factory, sizer, maxSize);
+            case WEAK_VALUES:
+                return new WeakValues<>(factory, sizer);
+            default:
+                throw new IllegalArgumentException("Unknown eviction policy: " + policy);
+        }
+    }
+
+    // Returns the shared instance for key, creating it at most once per live entry.
+    public abstract V get(K key);
+
+    public abstract int size();
+
+    public FlyweightStats stats() {
+
+        return new FlyweightStats(this.creations.sum(), this.hits.sum(), this.evictions.sum(), size(),
+                this.retainedBytes.sum());
+    }
+
+    private static class Unbounded<K, V> extends FlyweightRegistry<K, V> {
+        private final ConcurrentHashMap<K, V> entries = new ConcurrentHashMap<>();
+
+        private Unbounded(Function<K, V> factory, ToLongFunction<V> sizer) {
+
+            super(factory, sizer);
+        }
+
+        @Override
+        public V get(K key) {
+
+            V value = this.entries.get(key);
+            if (value != null) {
+                this.hits.increment();
+                return value;
+            }
+            boolean[] created = new boolean[1];
+            value = this.entries.computeIfAbsent(key, k -> {
+                V fresh = this.factory.apply(k);
+                created[0] = true;
+                this.retainedBytes.add(this.sizer.applyAsLong(fresh));
+                return fresh;
+            });
+            (created[0] ? this.creations : this.hits).increment();
+            return value;
+        }
+
+        @Override
+        public int size() {
+
+            return this.entries.size();
+        }
+    }
+
+    private static class Lru<K, V> extends FlyweightRegistry<K, V> {
+        private final Map<K, V> entries;
+
+        private Lru(Function<K, V> factory, ToLongFunction<V> sizer, int maxSize) {
+
+            super(factory, sizer);
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+            }
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+
+                    if (size() > maxSize) {
+                        evictions.increment();
+                        retainedBytes.add(-sizer.applyAsLong(eldest.getValue()));
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public synchronized V get(K key) {
+
+            V value = this.entries.get(key);
+            if (value != null) {
+                this.hits.increment();
+                return value;
+            }
+            value = this.factory.apply(key);
+            this.retainedBytes.add(this.sizer.applyAsLong(value));
+            this.entries.put(key, value);
+            this.creations.increment();
+            return value;
+        }
+
+        @Override
+        public synchronized int size() {
+
+            return this.entries.size();
+        }
+    }
+
+    // Entries disappear once no client holds the flyweight any more.
+    private static class WeakValues<K, V> extends FlyweightRegistry<K, V> {
+        private final ConcurrentHashMap<K, KeyedReference<K, V>> entries = new ConcurrentHashMap<>();
+        private final ReferenceQueue<V> collected = new ReferenceQueue<>();
+
+        private WeakValues(Function<K, V> factory, ToLongFunction<V> sizer) {
+
+            super(factory, sizer);
+        }
+
+        @Override
+        public V get(K key) {
+
+            expungeCollected();
+            KeyedReference<K, V> reference = this.entries.get(key);
+            V value = reference == null ? null : reference.get();
+            if (value != null) {
+                this.hits.increment();
+                return value;
+            }
+            Object[] shared = new Object[1];
+            boolean[] created = new boolean[1];
+            this.entries.compute(key, (k, current) -> {
+                V existing = current == null ? null : current.get();
+                if (existing != null) {
+                    shared[0] = existing;
+                    return current;
+                }
+                V fresh = this.factory.apply(k);
+                shared[0] = fresh;
+                created[0] = true;
+                long bytes = this.sizer.applyAsLong(fresh);
+                this.retainedBytes.add(bytes);
+                if (current != null) {
+                    // The previous flyweight was collected but not yet expunged.
+                    this.retainedBytes.add(-current.bytes);
+                    this.evictions.increment();
+                }
+                return new KeyedReference<>(k, fresh, bytes, this.collected);
+            });
+            (created[0] ? this.creations : this.hits).increment();
+            @SuppressWarnings("unchecked")
+            V result = (V) shared[0];
+            return result;
+        }
+
+        @Override
+        public int size() {
+
+            expungeCollected();
+            return this.entries.size();
+        }
+
+        private void expungeCollected() {
+
+            Reference<? extends V> reference;
+            while ((reference = this.collected.poll()) != null) {
+                KeyedReference<?, ?> keyed = (KeyedReference<?, ?>) reference;
+                if (this.entries.remove(keyed.key, keyed)) {
+                    this.retainedBytes.add(-keyed.bytes);
+                    this.evictions.increment();
+                }
+            }
+        }
+    }
+
+    private static class KeyedReference<K, V> extends WeakReference<V> {
+        private final K key;
+        private final long bytes;
+
+        private KeyedReference(K key, V value, long bytes, ReferenceQueue<V> queue) {
+
+            super(value, queue);
+            this.key = key;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+public record FlyweightStats(long creations, long hits, long evictions, int size, long retainedBytes) {
+
+    public long requests() {
+
+        return this.creations + this.hits;
+    }
+
+    // Requests served per flyweight created; 1.0 means nothing was shared.
+    public double shareRatio() {
+
+        return this.creations == 0 ? 0.0 : (double) requests() / this.creations;
+    }
+
+    // Bytes that one object per request would have retained, minus what the live flyweights retain.
+    // Assumes every flyweight has the same size and each unshared request would allocate one.
+    public long estimatedSavedBytes() {
+
+        if (this.size == 0) {
+            return 0;
+        }
+        return this.retainedBytes / this.size * requests() - this.retainedBytes;
+    }
+}
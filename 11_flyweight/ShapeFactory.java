@@ -1,16 +1,25 @@
-import java.util.HashMap;
-import java.util.Map;
-
 public class ShapeFactory {
-    private static final Map<String, Shape> circleMap = new HashMap<>();
+    private static volatile FlyweightRegistry<String, Shape> circleRegistry =
+            FlyweightRegistry.create(FlyweightRegistry.EvictionPolicy.NONE, 0, Circle::new, ShapeFactory::estimateBytes);
 
     public static Shape getCircle(String color) {
 
-        Circle circle = (Circle) circleMap.get(color);
-        if (circle == null) {
-            circle = new Circle(color);
-            circleMap.put(color, circle);
-        }
-        return circle;
+        return circleRegistry.get(color);
+    }
+
+    // Replaces the registry, e.g. to bound it when colors come from user data. Existing circles are dropped.
+    public static void configure(FlyweightRegistry.EvictionPolicy policy, int maxSize) {
+
+        circleRegistry = FlyweightRegistry.create(policy, maxSize, Circle::new, ShapeFactory::estimateBytes);
+    }
+
+    public static FlyweightStats getStats() {
+
+        return circleRegistry.stats();
+    }
+
+    private static long estimateBytes(Shape shape) {
+
+        return ((Circle) shape).estimatedBytes();
     }
 }
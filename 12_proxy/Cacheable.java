@@ -0,0 +1,15 @@
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks an interface method whose results CachingProxy may memoize, keyed by its arguments.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cacheable {
+
+    // Zero or less keeps entries until they are evicted by size.
+    long ttlMillis() default 0;
+
+    int maxSize() default 1024;
+}
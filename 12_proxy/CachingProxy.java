@@ -0,0 +1,177 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// A virtual proxy for any interface: the target is created on first use, and results of
+// @Cacheable methods are memoized per argument list.
+public final class CachingProxy<T> implements InvocationHandler {
+    private static final List<Object> NO_ARGUMENTS = List.of();
+    private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final Class<T> iface;
+    private final Supplier<T> targetFactory;
+    private final Map<Method, Dispatch> dispatches = new ConcurrentHashMap<>();
+    private volatile T target;
+
+    private CachingProxy(Class<T> iface, Supplier<T> targetFactory) {
+
+        this.iface = iface;
+        this.targetFactory = targetFactory;
+    }
+
+    public static <T> T create(Class<T> iface, Supplier<T> target) {
+
+        if (!iface.isInterface()) {
+            throw new IllegalArgumentException(iface.getName() + " is not an interface");
+        }
+        CachingProxy<T> handler = new CachingProxy<>(iface, target);
+        for (Method method : iface.getMethods()) {
+            handler.dispatches.put(method, new Dispatch(method));
+        }
+        return iface.cast(Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[]{iface}, handler));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        Dispatch dispatch = this.dispatches.get(method);
+        if (dispatch == null) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+        if (dispatch.cache == null) {
+            return dispatch.handle.invokeExact((Object) target(), args);
+        }
+        Object key = keyOf(args);
+        Object cached = dispatch.cache.get(key);
+        if (cached != null) {
+            return cached == NullResult.INSTANCE ? null : cached;
+        }
+        Object result = dispatch.handle.invokeExact((Object) target(), args);
+        dispatch.cache.put(key, result == null ? NullResult.INSTANCE : result);
+        return result;
+    }
+
+    // Single arguments are used as keys directly to avoid wrapping them on every call.
+    private static Object keyOf(Object[] args) {
+
+        if (args == null) {
+            return NO_ARGUMENTS;
+        }
+        if (args.length == 1 && args[0] != null && !args[0].getClass().isArray()) {
+            return args[0];
+        }
+        return Arrays.asList(args.clone());
+    }
+
+    private T target() {
+
+        T current = this.target;
+        if (current == null) {
+            synchronized (this) {
+                current = this.target;
+                if (current == null) {
+                    current = this.targetFactory.get();
+                    this.target = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "CachingProxy[" + this.iface.getName() + "]";
+            default:
+                throw new UnsupportedOperationException(method.toString());
+        }
+    }
+
+    private static final class Dispatch {
+        private final MethodHandle handle;
+        private final ResultCache cache;
+
+        private Dispatch(Method method) {
+
+            this.handle = unreflect(method)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(SPREAD_TYPE);
+            Cacheable cacheable = method.getAnnotation(Cacheable.class);
+            this.cache = cacheable == null || method.getReturnType() == void.class
+                    ? null
+                    : new ResultCache(cacheable.maxSize(), cacheable.ttlMillis());
+        }
+    }
+
+    // Interfaces that are not public need a lookup with private access to their package.
+    private static MethodHandle unreflect(Method method) {
+
+        try {
+            return MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException publicFailure) {
+            try {
+                return MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup())
+                        .unreflect(method);
+            } catch (IllegalAccessException e) {
+                e.addSuppressed(publicFailure);
+                throw new IllegalArgumentException("Cannot dispatch to " + method, e);
+            }
+        }
+    }
+
+    private static final class ResultCache {
+        private final long ttlNanos;
+        private final LinkedHashMap<Object, Entry> entries;
+
+        private ResultCache(int maxSize, long ttlMillis) {
+
+            this.ttlNanos = ttlMillis > 0 ? ttlMillis * 1_000_000 : 0;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        private synchronized Object get(Object key) {
+
+            Entry entry = this.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (this.ttlNanos > 0 && System.nanoTime() - entry.createdAt() > this.ttlNanos) {
+                this.entries.remove(key);
+                return null;
+            }
+            return entry.value();
+        }
+
+        private synchronized void put(Object key, Object value) {
+
+            this.entries.put(key, new Entry(value, this.ttlNanos > 0 ? System.nanoTime() : 0));
+        }
+    }
+
+    private record Entry(Object value, long createdAt) {
+    }
+
+    private enum NullResult {
+        INSTANCE
+    }
+}
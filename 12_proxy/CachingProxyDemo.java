@@ -0,0 +1,66 @@
+public class CachingProxyDemo {
+
+    public interface ImageCatalog {
+
+        @Cacheable(ttlMillis = 60_000, maxSize = 256)
+        String describe(String filename);
+
+        int imageCount();
+    }
+
+    public static class SlowImageCatalog implements ImageCatalog {
+
+        public SlowImageCatalog() {
+
+            System.out.println("Connecting to the image catalog...");
+        }
+
+        @Override
+        public String describe(String filename) {
+
+            System.out.println("Looking up " + filename + " in the catalog.");
+            return filename + " (1920x1080)";
+        }
+
+        @Override
+        public int imageCount() {
+
+            return 42;
+        }
+    }
+
+    public static void main(String[] args) {
+
+        ImageCatalog catalog = CachingProxy.create(ImageCatalog.class, SlowImageCatalog::new);
+        System.out.println("Proxy created: " + catalog);
+
+        System.out.println(catalog.describe("high-res-photo.jpg"));
+        System.out.println(catalog.describe("high-res-photo.jpg"));
+        System.out.println("Images in catalog: " + catalog.imageCount());
+
+        ImageCatalog direct = new SlowImageCatalog();
+        int calls = 10_000_000;
+        for (int run = 0; run < 3; run++) {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                sink += direct.imageCount();
+            }
+            double directNanos = (double) (System.nanoTime() - start) / calls;
+
+            start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                sink += catalog.imageCount();
+            }
+            double proxiedNanos = (double) (System.nanoTime() - start) / calls;
+
+            start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                sink += catalog.describe("high-res-photo.jpg").length();
+            }
+            double cachedNanos = (double) (System.nanoTime() - start) / calls;
+            System.out.printf("run %d: direct %.1f ns, proxied %.1f ns, cached hit %.1f ns (%d)%n",
+                    run, directNanos, proxiedNanos, cachedNanos, sink);
+        }
+    }
+}
@@ -1,11 +1,80 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
 public class Client {
+    private static final byte[] JPEG_HEADER = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0};
+
+    public static void main(String[] args) throws IOException {
 
-    public static void main(String[] args) {
+        Path folder = Files.createTempDirectory("proxy-demo");
+        folder.toFile().deleteOnExit();
+        String photo = createImage(folder, "high-res-photo.jpg", 4 * 1024 * 1024);
 
-        Image image = new ProxyImage("high-res-photo.jpg");
+        Image image = new ProxyImage(photo);
         System.out.println("--- First call to display() ---");
         image.display();
         System.out.println("\n--- Second call to display() ---");
         image.display();
+
+        System.out.println("\n--- Prefetching a gallery ---");
+        List<String> gallery = new ArrayList<>();
+        for (String name : List.of("beach.jpg", "forest.jpg", "city.jpg")) {
+            gallery.add(createImage(folder, name, 64 * 1024));
+        }
+        long start = System.nanoTime();
+        for (ProxyImage thumbnail : ProxyImage.prefetch(gallery)) {
+            thumbnail.display();
+        }
+        System.out.println("Gallery shown in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        System.out.println("\n--- Another proxy for an already loaded image ---");
+        new ProxyImage(photo).display();
+        System.out.println(ImageCache.shared().stats());
+
+        System.out.println("\n--- Prefetch and display images too large for the cache, concurrently ---");
+        checkOversizedLoadsOnce(createImage(folder, "poster.jpg", 64 * 1024));
+    }
+
+    // Each proxy must read the image at most once, however display() and its prefetch interleave.
+    // A proxy may also share a load still in flight for the one before it.
+    private static void checkOversizedLoadsOnce(String filename) {
+
+        ImageCache cache = new ImageCache(1024);
+        int proxies = 500;
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int i = 0; i < proxies; i++) {
+                long loadsBefore = cache.stats().loads();
+                ProxyImage proxy = new ProxyImage(filename, true, cache);
+                Thread viewer = Thread.ofVirtual().start(proxy::display);
+                proxy.display();
+                viewer.join();
+                proxy.display();
+                long loads = cache.stats().loads() - loadsBefore;
+                if (loads > 1) {
+                    throw new IllegalStateException("Proxy " + i + " loaded the image " + loads + " times");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            System.setOut(console);
+        }
+        System.out.println(proxies + " proxies, " + cache.stats().loads() + " loads");
+    }
+
+    private static String createImage(Path folder, String name, int size) throws IOException {
+
+        byte[] content = new byte[size];
+        System.arraycopy(JPEG_HEADER, 0, content, 0, JPEG_HEADER.length);
+        Path file = Files.write(folder.resolve(name), content);
+        file.toFile().deleteOnExit();
+        return file.toString();
     }
 }
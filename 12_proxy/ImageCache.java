@@ -0,0 +1,145 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Process-wide cache of loaded images, bounded by the total bytes of the cached images and
+// evicted in least-recently-used order. Concurrent requests for the same file share one load.
+public class ImageCache {
+    private static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    private static final ImageCache shared = new ImageCache(DEFAULT_MAX_BYTES);
+
+    private final ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+    private final long maxBytes;
+    private final LinkedHashMap<String, RealImage> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<RealImage>> loading = new HashMap<>();
+    private long currentBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long loads = 0;
+    private long totalLoadNanos = 0;
+
+    public ImageCache(long maxBytes) {
+
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    public static ImageCache shared() {
+
+        return shared;
+    }
+
+    public RealImage get(String filename) {
+
+        return request(filename, false).join();
+    }
+
+    // Starts loading in the background unless the image is cached or already loading.
+    public CompletableFuture<RealImage> prefetch(String filename) {
+
+        return request(filename, true);
+    }
+
+    public synchronized boolean contains(String filename) {
+
+        return this.entries.containsKey(filename);
+    }
+
+    // Images larger than the whole cache are handed out but never cached; callers that want to
+    // reuse such an image have to hold on to it themselves.
+    public boolean fits(RealImage image) {
+
+        return image.getSizeInBytes() <= this.maxBytes;
+    }
+
+    public synchronized boolean isLoading(String filename) {
+
+        return this.loading.containsKey(filename);
+    }
+
+    public synchronized void clear() {
+
+        this.entries.clear();
+        this.currentBytes = 0;
+    }
+
+    public synchronized ImageCacheStats stats() {
+
+        return new ImageCacheStats(this.hits, this.misses, this.evictions, this.entries.size(), this.currentBytes,
+                this.loads, this.totalLoadNanos);
+    }
+
+    private CompletableFuture<RealImage> request(String filename, boolean inBackground) {
+
+        CompletableFuture<RealImage> pending;
+        synchronized (this) {
+            RealImage cached = this.entries.get(filename);
+            if (cached != null) {
+                this.hits++;
+                return CompletableFuture.completedFuture(cached);
+            }
+            pending = this.loading.get(filename);
+            if (pending != null) {
+                this.hits++;
+                return pending;
+            }
+            this.misses++;
+            pending = new CompletableFuture<>();
+            this.loading.put(filename, pending);
+        }
+        CompletableFuture<RealImage> owned = pending;
+        if (inBackground) {
+            this.loader.execute(() -> load(filename, owned));
+        } else {
+            load(filename, owned);
+        }
+        return owned;
+    }
+
+    private void load(String filename, CompletableFuture<RealImage> pending) {
+
+        long start = System.nanoTime();
+        try {
+            RealImage image = new RealImage(filename);
+            synchronized (this) {
+                this.loads++;
+                this.totalLoadNanos += System.nanoTime() - start;
+                insert(filename, image);
+            }
+            // Completed while still registered as loading, so callbacks such as a proxy keeping an
+            // oversized image have run before a new request can miss both maps and load again.
+            pending.complete(image);
+            synchronized (this) {
+                this.loading.remove(filename);
+            }
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            synchronized (this) {
+                this.loading.remove(filename);
+            }
+        }
+    }
+
+    private void insert(String filename, RealImage image) {
+
+        long size = image.getSizeInBytes();
+        if (!fits(image)) {
+            return;
+        }
+        this.entries.put(filename, image);
+        this.currentBytes += size;
+        Iterator<RealImage> eldest = this.entries.values().iterator();
+        while (this.currentBytes > this.maxBytes && eldest.hasNext()) {
+            this.currentBytes -= eldest.next().getSizeInBytes();
+            eldest.remove();
+            this.evictions++;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+public record ImageCacheStats(long hits, long misses, long evictions, int entries, long bytes, long loads,
+                              long totalLoadNanos) {
+
+    public double hitRate() {
+
+        long requests = this.hits + this.misses;
+        return requests == 0 ? 0.0 : (double) this.hits / requests;
+    }
+
+    public double averageLoadMillis() {
+
+        return this.loads == 0 ? 0.0 : this.totalLoadNanos / 1_000_000.0 / this.loads;
+    }
+}
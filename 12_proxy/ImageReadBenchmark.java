@@ -0,0 +1,96 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+public class ImageReadBenchmark {
+    private static final long[] SIZES = {1024, 64 * 1024, 1024 * 1024, 16 * 1024 * 1024, 128 * 1024 * 1024,
+            500L * 1024 * 1024};
+    private static final int RUNS = 3;
+    // Keeps the scan results observable so the JIT cannot drop the loops.
+    private static volatile long sink;
+
+    // Pass a size in MB to cap the corpus, e.g. "64" to skip the largest files.
+    public static void main(String[] args) throws IOException {
+
+        long maxBytes = args.length > 0 ? Long.parseLong(args[0]) * 1024 * 1024 : Long.MAX_VALUE;
+        Path corpus = Files.createTempDirectory("image-corpus");
+        try {
+            System.out.printf("%12s %14s %14s %16s%n", "file size", "mapped (ms)", "heap (ms)", "RealImage (ms)");
+            for (long size : SIZES) {
+                if (size > maxBytes) {
+                    continue;
+                }
+                Path file = generate(corpus, size);
+                long checksum = 0;
+                long mapped = Long.MAX_VALUE;
+                long heap = Long.MAX_VALUE;
+                long realImage = Long.MAX_VALUE;
+                for (int run = 0; run < RUNS; run++) {
+                    long start = System.nanoTime();
+                    checksum += readMapped(file);
+                    mapped = Math.min(mapped, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    checksum += readHeap(file);
+                    heap = Math.min(heap, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    new RealImage(file.toString()).getFormat();
+                    realImage = Math.min(realImage, System.nanoTime() - start);
+                }
+                Files.delete(file);
+                sink = checksum;
+                System.out.printf("%12d %14.3f %14.3f %16.3f%n", size, mapped / 1e6, heap / 1e6, realImage / 1e6);
+            }
+        } finally {
+            Files.deleteIfExists(corpus);
+        }
+    }
+
+    private static Path generate(Path corpus, long size) throws IOException {
+
+        Path file = corpus.resolve("image-" + size + ".bin");
+        byte[] chunk = new byte[1024 * 1024];
+        new Random(size).nextBytes(chunk);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long written = 0;
+            while (written < size) {
+                int length = (int) Math.min(chunk.length, size - written);
+                written += channel.write(ByteBuffer.wrap(chunk, 0, length));
+            }
+        }
+        return file;
+    }
+
+    // Full scans, so both variants actually touch every byte of the file.
+    private static long readMapped(Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long sum = 0;
+            long size = channel.size();
+            for (long offset = 0; offset < size; offset += Integer.MAX_VALUE) {
+                long length = Math.min(Integer.MAX_VALUE, size - offset);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                for (int i = 0; i < length; i += 64) {
+                    sum += buffer.get(i);
+                }
+            }
+            return sum;
+        }
+    }
+
+    private static long readHeap(Path file) throws IOException {
+
+        byte[] bytes = Files.readAllBytes(file);
+        long sum = 0;
+        for (int i = 0; i < bytes.length; i += 64) {
+            sum += bytes[i];
+        }
+        return sum;
+    }
+}
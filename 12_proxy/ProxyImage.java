@@ -1,19 +1,90 @@
-public class ProxyImage implements Image {
-    private RealImage realImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Images normally live in the shared ImageCache, so proxies for the same file share one load and
+// evicted images can be reclaimed. An image too large for the cache is kept by the proxy itself,
+// so it is still loaded only once.
+public final class ProxyImage implements Image {
+    private final ImageCache cache;
     private String filename;
+    // Set from a loader thread when a prefetch completes.
+    private volatile RealImage oversized;
+    // The prefetch in flight, so display() waits for it instead of racing it to the cache.
+    // Cleared once the image is in the cache, so the proxy does not pin it against eviction.
+    private volatile CompletableFuture<RealImage> prefetched;
 
     public ProxyImage(String filename) {
 
+        this(filename, false);
+    }
+
+    public ProxyImage(String filename, boolean prefetch) {
+
+        this(filename, prefetch, ImageCache.shared());
+    }
+
+    public ProxyImage(String filename, boolean prefetch, ImageCache cache) {
+
         this.filename = filename;
+        this.cache = cache;
+        if (prefetch) {
+            prefetch();
+        }
+    }
+
+    // Loads many images in parallel, one virtual thread each; display() then waits only for what is left.
+    public static List<ProxyImage> prefetch(Collection<String> filenames) {
+
+        List<ProxyImage> images = new ArrayList<>(filenames.size());
+        for (String filename : filenames) {
+            images.add(new ProxyImage(filename, true));
+        }
+        return images;
+    }
+
+    // Hints that the image will be displayed soon and starts loading it in the background.
+    public void prefetch() {
+
+        CompletableFuture<RealImage> pending = this.cache.prefetch(this.filename);
+        this.prefetched = pending;
+        pending.whenComplete((image, failure) -> {
+            if (image != null) {
+                keepIfOversized(image);
+            }
+            this.prefetched = null;
+        });
+    }
+
+    public boolean isLoaded() {
+
+        return this.oversized != null || this.cache.contains(this.filename);
     }
 
     @Override
     public void display() {
 
-        if (this.realImage == null) {
-            System.out.println("Proxy: creating RealImage object now.");
-            this.realImage = new RealImage(filename);
+        // Read before oversized: the prefetch sets oversized before it clears prefetched.
+        CompletableFuture<RealImage> pending = this.prefetched;
+        RealImage image = this.oversized;
+        if (image == null && pending != null) {
+            image = pending.join();
+        }
+        if (image == null) {
+            if (!this.cache.contains(this.filename) && !this.cache.isLoading(this.filename)) {
+                System.out.println("Proxy: creating RealImage object now.");
+            }
+            image = this.cache.get(this.filename);
+            keepIfOversized(image);
+        }
+        image.display();
+    }
+
+    private void keepIfOversized(RealImage image) {
+
+        if (!this.cache.fits(image)) {
+            this.oversized = image;
         }
-        this.realImage.display();
     }
 }
@@ -1,5 +1,18 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 public class RealImage implements Image {
+    // Mapping has a fixed setup cost, so only files at least this large are memory-mapped.
+    static final int MAPPING_THRESHOLD = 1024 * 1024;
+    private static final DirectBufferPool readBuffers = new DirectBufferPool(MAPPING_THRESHOLD, 16);
+
     private String filename;
+    private ByteBuffer data;
+    private volatile String format;
 
     public RealImage(String filename) {
 
@@ -7,18 +20,83 @@ public class RealImage implements Image {
         loadFromDisk();
     }
 
+    // Large files are mapped, so their pages are only read when touched; small files are read in one
+    // go through a pooled direct buffer into a compact heap buffer.
     private void loadFromDisk() {
 
         System.out.println("Loading image " + this.filename);
+        try (FileChannel channel = FileChannel.open(Path.of(this.filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAPPING_THRESHOLD) {
+                this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                this.data = readSmallFile(channel, (int) size);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load image " + this.filename, e);
+        }
+    }
+
+    private static ByteBuffer readSmallFile(FileChannel channel, int size) throws IOException {
+
+        ByteBuffer buffer = readBuffers.acquire();
         try {
-            Thread.sleep(2000);
-        } catch (InterruptedException e) {
+            buffer.limit(size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+            copy.put(buffer).flip();
+            return copy.asReadOnlyBuffer();
+        } finally {
+            readBuffers.release(buffer);
+        }
+    }
+
+    public long getSizeInBytes() {
+
+        return this.data.capacity();
+    }
+
+    public boolean isMapped() {
+
+        return this.data.isDirect();
+    }
+
+    // Decoding is deferred until first display and only reads the header, so a mapped image
+    // touches a single page.
+    public String getFormat() {
+
+        String decoded = this.format;
+        if (decoded == null) {
+            decoded = detectFormat(this.data);
+            this.format = decoded;
+        }
+        return decoded;
+    }
+
+    // Absolute reads only: the buffer is shared by every thread displaying this image.
+    static String detectFormat(ByteBuffer data) {
+
+        int size = data.capacity();
+        if (size >= 8 && (data.get(0) & 0xFF) == 0x89 && data.get(1) == 'P' && data.get(2) == 'N' && data.get(3) == 'G') {
+            return "PNG";
+        }
+        if (size >= 3 && (data.get(0) & 0xFF) == 0xFF && (data.get(1) & 0xFF) == 0xD8 && (data.get(2) & 0xFF) == 0xFF) {
+            return "JPEG";
+        }
+        if (size >= 6 && data.get(0) == 'G' && data.get(1) == 'I' && data.get(2) == 'F') {
+            return "GIF";
         }
+        return "unknown";
     }
 
     @Override
     public void display() {
 
-        System.out.println("Displaying image " + this.filename);
+        System.out.println("Displaying image " + this.filename + " (" + getFormat() + ", " + getSizeInBytes() + " bytes)");
     }
 }
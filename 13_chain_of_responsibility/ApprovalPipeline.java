@@ -0,0 +1,240 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+// Runs each approver of a chain as its own stage, with a bounded queue and a dedicated worker, so
+// different documents are at different approvers at the same time.
+//
+// Every stage is a single FIFO worker, so a submitter's documents reach each approver in
+// submission order. They can still finish out of order, since a document handled early leaves
+// before one that goes further down the chain; a sequencer at the exit holds such documents back
+// until everything the submitter sent before them has finished.
+public class ApprovalPipeline implements AutoCloseable {
+    private final List<Stage> stages = new ArrayList<>();
+    // Guarded by itself; an entry exists while the submitter has documents in the pipeline.
+    private final Map<String, Sequencer> sequencers = new HashMap<>();
+    private final BiConsumer<String, Document> onComplete;
+    private final Semaphore outstanding;
+    private final int maxOutstanding;
+    private final LatencyHistogram endToEnd = new LatencyHistogram();
+    private final LongAdder failed = new LongAdder();
+    private final List<Thread> workers = new ArrayList<>();
+
+    public ApprovalPipeline(Approver head, int queueCapacity, int maxOutstanding) {
+
+        this(head, queueCapacity, maxOutstanding, (submitter, document) -> {
+        });
+    }
+
+    // onComplete sees each submitter's documents in submission order, including failed ones. It
+    // runs on a stage worker while the exit is locked, so it should return quickly.
+    public ApprovalPipeline(Approver head, int queueCapacity, int maxOutstanding,
+                            BiConsumer<String, Document> onComplete) {
+
+        this.onComplete = onComplete;
+        this.maxOutstanding = maxOutstanding;
+        this.outstanding = new Semaphore(maxOutstanding);
+        Set<Approver> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Approver current = head;
+        while (current != null && visited.add(current)) {
+            this.stages.add(new Stage(current, queueCapacity));
+            if (!current.passesUnhandled()) {
+                break;
+            }
+            current = current.nextApprover;
+        }
+        for (int i = 0; i < this.stages.size(); i++) {
+            int index = i;
+            startWorker("approval-stage-" + i, () -> runStage(index));
+        }
+    }
+
+    // Blocks while the pipeline already holds maxOutstanding documents or the first stage is full.
+    // Documents one submitter sends from several threads at once are ordered as they are numbered.
+    public void submit(String submitter, Document document) throws InterruptedException {
+
+        this.outstanding.acquire();
+        Ticket ticket;
+        synchronized (this.sequencers) {
+            Sequencer sequencer = this.sequencers.computeIfAbsent(submitter, key -> new Sequencer());
+            ticket = new Ticket(submitter, document, sequencer.nextSequence++, System.nanoTime());
+        }
+        try {
+            this.stages.get(0).queue.put(ticket);
+        } catch (InterruptedException e) {
+            // The ticket already has its place in the submitter's order; retire it so later ones
+            // are not held back waiting for it.
+            this.failed.increment();
+            complete(ticket);
+            throw e;
+        }
+    }
+
+    public void awaitCompletion() throws InterruptedException {
+
+        this.outstanding.acquire(this.maxOutstanding);
+        this.outstanding.release(this.maxOutstanding);
+    }
+
+    public int getStageCount() {
+
+        return this.stages.size();
+    }
+
+    public int getQueueDepth(int stage) {
+
+        return this.stages.get(stage).queue.size();
+    }
+
+    public LatencyHistogram getServiceTime(int stage) {
+
+        return this.stages.get(stage).serviceTime;
+    }
+
+    public LatencyHistogram getEndToEndLatency() {
+
+        return this.endToEnd;
+    }
+
+    // Documents whose approver threw; they leave the pipeline at the stage that failed.
+    public long getFailedCount() {
+
+        return this.failed.sum();
+    }
+
+    // Stops the workers and waits for them. If the caller is interrupted while waiting, it stops
+    // waiting and keeps its interrupt status set.
+    @Override
+    public void close() {
+
+        for (Thread worker : this.workers) {
+            worker.interrupt();
+        }
+        try {
+            for (Thread worker : this.workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void startWorker(String name, Runnable body) {
+
+        Thread worker = new Thread(body, name);
+        worker.setDaemon(true);
+        this.workers.add(worker);
+        worker.start();
+    }
+
+    private void runStage(int index) {
+
+        Stage stage = this.stages.get(index);
+        boolean last = index == this.stages.size() - 1;
+        try {
+            while (true) {
+                Ticket ticket = stage.queue.take();
+                Document document = ticket.document;
+                long start = System.nanoTime();
+                boolean forward = false;
+                try {
+                    if (stage.handledTypes.contains(document.getType())) {
+                        stage.approver.approve(document);
+                    } else if (!stage.approver.passesUnhandled()) {
+                        stage.approver.processRequest(document);
+                    } else if (!last) {
+                        stage.approver.inspect(document);
+                        forward = true;
+                    }
+                } catch (RuntimeException e) {
+                    this.failed.increment();
+                    forward = false;
+                    System.err.println("Approval of " + document.getType() + " failed at stage " + index + ": " + e);
+                }
+                stage.serviceTime.record(System.nanoTime() - start);
+                if (forward) {
+                    this.stages.get(index + 1).queue.put(ticket);
+                } else {
+                    complete(ticket);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Retires the ticket if it is the submitter's oldest, along with any later ones that finished
+    // before it; otherwise parks it until its turn.
+    private void complete(Ticket ticket) {
+
+        synchronized (this.sequencers) {
+            Sequencer sequencer = this.sequencers.get(ticket.submitter);
+            if (ticket.sequence != sequencer.nextToRetire) {
+                sequencer.finishedEarly.put(ticket.sequence, ticket);
+                return;
+            }
+            for (Ticket next = ticket; next != null; next = sequencer.finishedEarly.remove(sequencer.nextToRetire)) {
+                retire(next);
+                sequencer.nextToRetire++;
+            }
+            if (sequencer.nextToRetire == sequencer.nextSequence) {
+                this.sequencers.remove(ticket.submitter);
+            }
+        }
+    }
+
+    private void retire(Ticket ticket) {
+
+        this.endToEnd.record(System.nanoTime() - ticket.submittedAt);
+        try {
+            this.onComplete.accept(ticket.submitter, ticket.document);
+        } catch (RuntimeException e) {
+            System.err.println("Completion callback for " + ticket.submitter + " failed: " + e);
+        }
+        this.outstanding.release();
+    }
+
+    private static class Sequencer {
+        private long nextSequence = 0;
+        private long nextToRetire = 0;
+        private final Map<Long, Ticket> finishedEarly = new HashMap<>();
+    }
+
+    private static class Stage {
+        private final Approver approver;
+        private final Set<String> handledTypes;
+        private final BlockingQueue<Ticket> queue;
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+
+        private Stage(Approver approver, int queueCapacity) {
+
+            this.approver = approver;
+            this.handledTypes = Set.copyOf(approver.getHandledTypes());
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+
+    private static class Ticket {
+        private final String submitter;
+        private final Document document;
+        private final long sequence;
+        private final long submittedAt;
+
+        private Ticket(String submitter, Document document, long sequence, long submittedAt) {
+
+            this.submitter = submitter;
+            this.document = document;
+            this.sequence = sequence;
+            this.submittedAt = submittedAt;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 public class ApprovalSystem {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
 
         Approver manager = new Manager();
         Approver director = new Director();
@@ -17,5 +17,20 @@ public class ApprovalSystem {
 
         System.out.println("\n--- Processing Resignation Request ---");
         manager.processRequest(new Document("Resignation", "Letter of resignation."));
+
+        System.out.println("\n--- Routing through the compiled table ---");
+        manager.route(new Document("Budget", "Request for new project funding."));
+        manager.route(new Document("Expense", "Taxi receipt."));
+
+        System.out.println("\n--- Pipelined processing ---");
+        // Alice's leave request is approved first, but completes after her resignation.
+        try (ApprovalPipeline pipeline = new ApprovalPipeline(manager, 16, 64,
+                (submitter, document) -> System.out.println("Completed for " + submitter + ": " + document.getType()))) {
+            pipeline.submit("alice", new Document("Resignation", "Letter of resignation."));
+            pipeline.submit("alice", new Document("Leave", "Request for 2 days off."));
+            pipeline.submit("bob", new Document("Budget", "Request for new project funding."));
+            pipeline.awaitCompletion();
+            System.out.println("End-to-end latency: " + pipeline.getEndToEndLatency());
+        }
     }
 }
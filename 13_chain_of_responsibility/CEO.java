@@ -1,12 +1,33 @@
+import java.util.Set;
+
 public class CEO extends Approver {
 
     @Override
     public void processRequest(Document document) {
 
         if (document.getType().equals("Resignation")) {
-            System.out.println("CEO approved the Resignation request: " + document.getContent());
+            approve(document);
         } else {
             System.out.println("CEO is handling: " + document.getContent());
         }
     }
+
+    @Override
+    public Set<String> getHandledTypes() {
+
+        return Set.of("Resignation");
+    }
+
+    @Override
+    public void approve(Document document) {
+
+        System.out.println("CEO approved the Resignation request: " + document.getContent());
+    }
+
+    // The CEO handles everything that reaches them, so the chain ends here.
+    @Override
+    protected boolean passesUnhandled() {
+
+        return false;
+    }
 }
@@ -1,13 +1,33 @@
+import java.util.Set;
+
 public class Director extends Approver {
 
     @Override
     public void processRequest(Document document) {
 
         if (document.getType().equals("Budget")) {
-            System.out.println("Director approved the Budget request: " + document.getContent());
+            approve(document);
         } else if (this.nextApprover != null) {
-            System.out.println("Director can't handle this. Passing to CEO.");
+            inspect(document);
             this.nextApprover.processRequest(document);
         }
     }
+
+    @Override
+    public Set<String> getHandledTypes() {
+
+        return Set.of("Budget");
+    }
+
+    @Override
+    public void approve(Document document) {
+
+        System.out.println("Director approved the Budget request: " + document.getContent());
+    }
+
+    @Override
+    public void inspect(Document document) {
+
+        System.out.println("Director can't handle this. Passing to CEO.");
+    }
 }
@@ -0,0 +1,55 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free latency histogram with power-of-two nanosecond buckets, precise to within a factor of two.
+public class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder count = new LongAdder();
+
+    public void record(long nanos) {
+
+        long value = Math.max(1, nanos);
+        this.counts.incrementAndGet(63 - Long.numberOfLeadingZeros(value));
+        this.totalNanos.add(value);
+        this.count.increment();
+    }
+
+    public long getCount() {
+
+        return this.count.sum();
+    }
+
+    public double getMeanMicros() {
+
+        long samples = this.count.sum();
+        return samples == 0 ? 0.0 : this.totalNanos.sum() / 1_000.0 / samples;
+    }
+
+    // Upper bound of the bucket holding the given percentile, in microseconds.
+    public double getPercentileMicros(double percentile) {
+
+        long samples = this.count.sum();
+        if (samples == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(samples * percentile / 100.0);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += this.counts.get(bucket);
+            if (seen >= rank) {
+                return Math.pow(2, bucket + 1) / 1_000.0;
+            }
+        }
+        return Math.pow(2, BUCKETS) / 1_000.0;
+    }
+
+    @Override
+    public String toString() {
+
+        return String.format("count=%d mean=%.1fus p50<=%.1fus p99<=%.1fus", getCount(), getMeanMicros(),
+                getPercentileMicros(50), getPercentileMicros(99));
+    }
+}
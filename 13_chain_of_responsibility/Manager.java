@@ -1,13 +1,33 @@
+import java.util.Set;
+
 public class Manager extends Approver {
 
     @Override
     public void processRequest(Document document) {
 
         if (document.getType().equals("Leave")) {
-            System.out.println("Manager approved the Leave request: " + document.getContent());
+            approve(document);
         } else if (this.nextApprover != null) {
-            System.out.println("Manager can't handle this. Passing to Director.");
+            inspect(document);
             this.nextApprover.processRequest(document);
         }
     }
+
+    @Override
+    public Set<String> getHandledTypes() {
+
+        return Set.of("Leave");
+    }
+
+    @Override
+    public void approve(Document document) {
+
+        System.out.println("Manager approved the Leave request: " + document.getContent());
+    }
+
+    @Override
+    public void inspect(Document document) {
+
+        System.out.println("Manager can't handle this. Passing to Director.");
+    }
 }
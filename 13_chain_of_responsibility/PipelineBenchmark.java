@@ -0,0 +1,66 @@
+public class PipelineBenchmark {
+    private static final int DOCUMENTS = 20_000;
+    private static final int SUBMITTERS = 64;
+    private static final long SERVICE_NANOS = 50_000;
+
+    public static void main(String[] args) throws InterruptedException {
+
+        System.out.printf("%7s %16s %16s %16s%n", "stages", "sequential doc/s", "pipelined doc/s", "one submitter");
+        for (int stageCount : new int[]{1, 2, 4, 8}) {
+            Approver head = buildChain(stageCount);
+            Document[] documents = new Document[DOCUMENTS];
+            for (int i = 0; i < DOCUMENTS; i++) {
+                documents[i] = new Document("Type" + (stageCount - 1), "Request " + i);
+            }
+
+            int sequentialDocuments = DOCUMENTS / 10;
+            long start = System.nanoTime();
+            for (int i = 0; i < sequentialDocuments; i++) {
+                head.processRequest(documents[i]);
+            }
+            double sequential = sequentialDocuments / ((System.nanoTime() - start) / 1e9);
+
+            // A single busy submitter pipelines as well as many, since order is restored at the exit.
+            double single = runPipelined(head, documents, 1, false);
+            double pipelined = runPipelined(head, documents, SUBMITTERS, true);
+            System.out.printf("%7d %16.0f %16.0f %16.0f%n", stageCount, sequential, pipelined, single);
+        }
+    }
+
+    private static double runPipelined(Approver head, Document[] documents, int submitters, boolean report)
+            throws InterruptedException {
+
+        try (ApprovalPipeline pipeline = new ApprovalPipeline(head, 256, 1024)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < documents.length; i++) {
+                pipeline.submit("submitter-" + (i % submitters), documents[i]);
+            }
+            pipeline.awaitCompletion();
+            double rate = documents.length / ((System.nanoTime() - start) / 1e9);
+            if (report) {
+                for (int stage = 0; stage < pipeline.getStageCount(); stage++) {
+                    System.out.println("        stage " + stage + " service: " + pipeline.getServiceTime(stage));
+                }
+                System.out.println("        end-to-end: " + pipeline.getEndToEndLatency());
+            }
+            return rate;
+        }
+    }
+
+    // Every document targets the last approver, so it visits every stage.
+    private static Approver buildChain(int stageCount) {
+
+        Approver head = null;
+        Approver previous = null;
+        for (int i = 0; i < stageCount; i++) {
+            Approver approver = new SimulatedApprover("Type" + i, SERVICE_NANOS);
+            if (previous == null) {
+                head = approver;
+            } else {
+                previous.setNextApprover(approver);
+            }
+            previous = approver;
+        }
+        return head;
+    }
+}
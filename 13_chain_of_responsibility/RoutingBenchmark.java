@@ -0,0 +1,40 @@
+public class RoutingBenchmark {
+    private static final int APPROVERS = 50;
+    private static final int REQUESTS = 5_000_000;
+
+    public static void main(String[] args) {
+
+        Approver head = null;
+        Approver previous = null;
+        for (int i = 0; i < APPROVERS; i++) {
+            Approver approver = new SimulatedApprover("Type" + i, 0);
+            if (previous == null) {
+                head = approver;
+            } else {
+                previous.setNextApprover(approver);
+            }
+            previous = approver;
+        }
+
+        Document[] documents = new Document[APPROVERS];
+        for (int i = 0; i < APPROVERS; i++) {
+            documents[i] = new Document("Type" + i, "Request " + i);
+        }
+
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                head.processRequest(documents[i % APPROVERS]);
+            }
+            double walkNanos = (double) (System.nanoTime() - start) / REQUESTS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                head.route(documents[i % APPROVERS]);
+            }
+            double routeNanos = (double) (System.nanoTime() - start) / REQUESTS;
+            System.out.printf("run %d: chain walk %.1f ns, compiled route %.1f ns (%d approvals)%n",
+                    run, walkNanos, routeNanos, SimulatedApprover.getApprovals());
+        }
+    }
+}
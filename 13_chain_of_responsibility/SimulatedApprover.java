@@ -0,0 +1,59 @@
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Silent approver for benchmarks: handles one document type and optionally takes some time to decide.
+public class SimulatedApprover extends Approver {
+    private static final AtomicLong approvals = new AtomicLong();
+
+    private final String type;
+    private final long serviceNanos;
+
+    public SimulatedApprover(String type, long serviceNanos) {
+
+        this.type = type;
+        this.serviceNanos = serviceNanos;
+    }
+
+    public static long getApprovals() {
+
+        return approvals.get();
+    }
+
+    @Override
+    public void processRequest(Document document) {
+
+        if (document.getType().equals(this.type)) {
+            approve(document);
+        } else if (this.nextApprover != null) {
+            inspect(document);
+            this.nextApprover.processRequest(document);
+        }
+    }
+
+    @Override
+    public Set<String> getHandledTypes() {
+
+        return Set.of(this.type);
+    }
+
+    @Override
+    public void approve(Document document) {
+
+        pause();
+        approvals.incrementAndGet();
+    }
+
+    @Override
+    public void inspect(Document document) {
+
+        pause();
+    }
+
+    private void pause() {
+
+        if (this.serviceNanos > 0) {
+            LockSupport.parkNanos(this.serviceNanos);
+        }
+    }
+}
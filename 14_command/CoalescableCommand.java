@@ -0,0 +1,6 @@
+// A command that only sets its receiver's state, so a later coalescable command on the same
+// receiver makes it redundant (e.g. on, off, on on one light is just on).
+public interface CoalescableCommand extends Command {
+
+    Object getReceiver();
+}
@@ -1,4 +1,5 @@
 public interface Command {
 
     void execute();
+    void undo();
 }
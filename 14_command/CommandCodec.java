@@ -0,0 +1,85 @@
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Maps journaled commands to compact binary records: a one-byte command type followed by the
+// four-byte id of its receiver. Only coalescable commands can be encoded, since their receiver is
+// known and a later record on the same receiver supersedes an earlier one. The top bit of the type
+// byte marks an undo, which decodes to a ReverseCommand.
+public class CommandCodec {
+    public static final int RECORD_SIZE = Byte.BYTES + Integer.BYTES;
+
+    private static final int UNDO_FLAG = 0x80;
+
+    private final Map<Object, Integer> receiverIds = new IdentityHashMap<>();
+    private final Map<Integer, Object> receivers = new HashMap<>();
+    private final Map<Class<?>, Byte> typeCodes = new HashMap<>();
+    private final Map<Byte, Function<Object, Command>> factories = new HashMap<>();
+
+    public void registerReceiver(int id, Object receiver) {
+
+        if (this.receivers.containsKey(id)) {
+            throw new IllegalArgumentException("Receiver id already registered: " + id);
+        }
+        this.receiverIds.put(receiver, id);
+        this.receivers.put(id, receiver);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <R> void registerCommand(int typeCode, Class<? extends CoalescableCommand> type, Function<R, Command> factory) {
+
+        byte code = (byte) typeCode;
+        if (typeCode < 0 || typeCode >= UNDO_FLAG || this.factories.containsKey(code)) {
+            throw new IllegalArgumentException("Invalid or duplicate type code: " + typeCode);
+        }
+        this.typeCodes.put(type, code);
+        this.factories.put(code, receiver -> factory.apply((R) receiver));
+    }
+
+    // Whether encode accepts the command; MacroCommand and other non-coalescable commands never are.
+    public boolean canEncode(Command command) {
+
+        return this.typeCodes.containsKey(command.getClass())
+                && this.receiverIds.containsKey(((CoalescableCommand) command).getReceiver());
+    }
+
+    public void encode(Command command, ByteBuffer target) {
+
+        encode(command, false, target);
+    }
+
+    // With reverse set, the record replays as command.undo().
+    public void encode(Command command, boolean reverse, ByteBuffer target) {
+
+        Byte code = this.typeCodes.get(command.getClass());
+        if (code == null) {
+            throw new IllegalArgumentException("No codec registered for " + command.getClass().getName());
+        }
+        Integer receiverId = this.receiverIds.get(((CoalescableCommand) command).getReceiver());
+        if (receiverId == null) {
+            throw new IllegalArgumentException("Receiver of " + command.getClass().getName() + " is not registered");
+        }
+        target.put(reverse ? (byte) (code | UNDO_FLAG) : code).putInt(receiverId);
+    }
+
+    public Command decode(ByteBuffer source) {
+
+        byte code = source.get();
+        int receiverId = source.getInt();
+        Function<Object, Command> factory = this.factories.get((byte) (code & ~UNDO_FLAG));
+        Object receiver = this.receivers.get(receiverId);
+        if (factory == null || receiver == null) {
+            throw new IllegalStateException("Unknown record: type " + code + ", receiver " + receiverId);
+        }
+        Command command = factory.apply(receiver);
+        return (code & UNDO_FLAG) != 0 ? new ReverseCommand(command) : command;
+    }
+
+    // Receiver id of an encoded record starting at the given index.
+    public static int receiverIdAt(ByteBuffer source, int index) {
+
+        return source.getInt(index + Byte.BYTES);
+    }
+}
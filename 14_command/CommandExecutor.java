@@ -0,0 +1,170 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Queues commands and runs them on a single worker in batches of up to batchSize, waiting at most
+// lingerMillis for a batch to fill. Within a batch, a coalescable command is dropped when a later
+// one targets the same receiver; any other command acts as a barrier to coalescing.
+public class CommandExecutor implements AutoCloseable {
+    private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Thread worker;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    // Time the worker spent running batches, as opposed to waiting for commands.
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final Object idle = new Object();
+    private volatile Throwable workerFailure;
+    private volatile boolean workerStopped = false;
+    private volatile boolean closed = false;
+
+    public CommandExecutor(int batchSize, long lingerMillis) {
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.worker = new Thread(this::drain, "command-executor");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void submit(Command command) {
+
+        if (this.closed) {
+            throw new IllegalStateException("Executor is closed");
+        }
+        checkWorker();
+        this.submitted.incrementAndGet();
+        this.queue.add(command);
+    }
+
+    // Waits until every command submitted so far has been executed or coalesced away. Throws
+    // IllegalStateException if the worker has stopped with commands still queued.
+    public void flush() throws InterruptedException {
+
+        synchronized (this.idle) {
+            while (this.executed.get() + this.coalesced.get() + this.failed.get() < this.submitted.get()) {
+                checkWorker();
+                this.idle.wait();
+            }
+        }
+    }
+
+    // commandsPerSecond is measured over the time the worker was busy, so idle periods between
+    // bursts do not dilute it.
+    public CommandExecutorStats stats() {
+
+        long busy = this.busyNanos.get();
+        long executed = this.executed.get();
+        return new CommandExecutorStats(this.submitted.get(), executed, this.coalesced.get(),
+                this.failed.get(), this.batches.get(), busy == 0 ? 0.0 : executed / (busy / 1e9));
+    }
+
+    private void checkWorker() {
+
+        if (this.workerFailure != null) {
+            throw new IllegalStateException("Executor worker died", this.workerFailure);
+        }
+        if (this.workerStopped) {
+            throw new IllegalStateException("Executor worker has stopped");
+        }
+    }
+
+    // Runs what is already queued, then stops the worker. If the caller is interrupted while
+    // waiting, queued commands are abandoned and the caller keeps its interrupt status set. If the
+    // worker has already died, there is nothing left to stop; flush() and submit report that.
+    @Override
+    public void close() {
+
+        this.closed = true;
+        try {
+            flush();
+            this.worker.interrupt();
+            this.worker.join();
+        } catch (InterruptedException e) {
+            this.worker.interrupt();
+            Thread.currentThread().interrupt();
+        } catch (IllegalStateException e) {
+            // The worker is gone along with whatever it had not run.
+        }
+    }
+
+    private void drain() {
+
+        List<Command> batch = new ArrayList<>(this.batchSize);
+        try {
+            while (true) {
+                batch.add(this.queue.take());
+                long deadline = System.nanoTime() + this.lingerNanos;
+                while (batch.size() < this.batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Command next = remaining > 0 ? this.queue.poll(remaining, TimeUnit.NANOSECONDS) : this.queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                long start = System.nanoTime();
+                run(batch);
+                this.busyNanos.addAndGet(System.nanoTime() - start);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Error e) {
+            // A command threw an Error; run() only contains RuntimeExceptions.
+            System.err.println("Executor worker died: " + e);
+            this.workerFailure = e;
+        } finally {
+            // Wake flush() so it sees that nothing will run the rest.
+            this.workerStopped = true;
+            synchronized (this.idle) {
+                this.idle.notifyAll();
+            }
+        }
+    }
+
+    private void run(List<Command> batch) {
+
+        boolean[] superseded = new boolean[batch.size()];
+        Map<Object, Integer> latestByReceiver = new IdentityHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i) instanceof CoalescableCommand coalescable) {
+                Integer previous = latestByReceiver.put(coalescable.getReceiver(), i);
+                if (previous != null) {
+                    superseded[previous] = true;
+                }
+            } else {
+                latestByReceiver.clear();
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (superseded[i]) {
+                this.coalesced.incrementAndGet();
+                continue;
+            }
+            try {
+                batch.get(i).execute();
+                this.executed.incrementAndGet();
+            } catch (RuntimeException e) {
+                this.failed.incrementAndGet();
+                System.err.println("Command " + batch.get(i) + " failed: " + e);
+            }
+        }
+        this.batches.incrementAndGet();
+        synchronized (this.idle) {
+            this.idle.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+public record CommandExecutorStats(long submitted, long executed, long coalesced, long failed, long batches,
+                                   double commandsPerSecond) {
+
+    // Fraction of submitted commands that were dropped because a later command superseded them.
+    public double coalescingRatio() {
+
+        return this.submitted == 0 ? 0.0 : (double) this.coalesced / this.submitted;
+    }
+}
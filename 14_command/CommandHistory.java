@@ -0,0 +1,74 @@
+// Undo/redo history in a fixed ring of preallocated slots: pushing, undoing and redoing never
+// allocate. When the ring is full, the oldest command is forgotten.
+public class CommandHistory {
+    private final Command[] slots;
+    private int oldest = 0;
+    private int undoable = 0;
+    private int redoable = 0;
+
+    public CommandHistory(int capacity) {
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.slots = new Command[capacity];
+    }
+
+    // Records an executed command. Anything that could have been redone is discarded.
+    public void push(Command command) {
+
+        this.slots[slot(this.undoable)] = command;
+        if (this.undoable == this.slots.length) {
+            this.oldest = slot(1);
+        } else {
+            this.undoable++;
+        }
+        for (int i = 0; i < this.redoable && this.undoable + i < this.slots.length; i++) {
+            this.slots[slot(this.undoable + i)] = null;
+        }
+        this.redoable = 0;
+    }
+
+    // Returns the command to undo, or null if there is none.
+    public Command undo() {
+
+        if (this.undoable == 0) {
+            return null;
+        }
+        this.undoable--;
+        this.redoable++;
+        return this.slots[slot(this.undoable)];
+    }
+
+    // Returns the command to redo, or null if there is none.
+    public Command redo() {
+
+        if (this.redoable == 0) {
+            return null;
+        }
+        Command command = this.slots[slot(this.undoable)];
+        this.undoable++;
+        this.redoable--;
+        return command;
+    }
+
+    public int getCapacity() {
+
+        return this.slots.length;
+    }
+
+    public int getUndoableCount() {
+
+        return this.undoable;
+    }
+
+    public int getRedoableCount() {
+
+        return this.redoable;
+    }
+
+    private int slot(int offset) {
+
+        return (this.oldest + offset) % this.slots.length;
+    }
+}
@@ -0,0 +1,400 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Write-ahead log of executed commands, appended to memory-mapped segment files.
+//
+// Each record is [int payload length][int CRC32C][long sequence][payload]. Segments are preallocated
+// and zero-filled, so a zero length marks the end of the written data. A background task forces
+// dirty pages to disk every syncIntervalMillis, so concurrent appenders share one fsync.
+//
+// Compaction writes a compacted segment named after the last sequence it covers. Opening a
+// journal discards segments that a newer compacted one covers, so a crash part way through
+// replacing them never replays a record twice.
+public final class CommandJournal implements AutoCloseable {
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final String PREFIX = "segment-";
+    private static final String COMPACTED_PREFIX = "compacted-";
+    private static final String SUFFIX = ".log";
+    private static final String TEMPORARY_SUFFIX = ".compacting";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final CommandCodec codec;
+    private final List<Path> sealedSegments = new ArrayList<>();
+    private final ScheduledExecutorService flusher;
+    private final CRC32C crc = new CRC32C();
+    private final ByteBuffer payload = ByteBuffer.allocate(CommandCodec.RECORD_SIZE);
+    private final ByteBuffer sequenceBytes = ByteBuffer.allocate(Long.BYTES);
+    private FileChannel activeChannel;
+    private long activeBaseSequence;
+    private MappedByteBuffer active;
+    private long nextSequence = 0;
+    private long durableSequence = -1;
+    private int syncedPosition = 0;
+
+    public CommandJournal(Path directory, int segmentBytes, long syncIntervalMillis, CommandCodec codec)
+            throws IOException {
+
+        if (segmentBytes < HEADER_SIZE + CommandCodec.RECORD_SIZE) {
+            throw new IllegalArgumentException("segmentBytes too small: " + segmentBytes);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.codec = codec;
+        Path compacted = recoverCompaction();
+        if (compacted != null) {
+            this.sealedSegments.add(compacted);
+        }
+        List<Path> segments = listSegments(PREFIX);
+        if (segments.isEmpty()) {
+            long baseSequence = compacted == null ? 0 : coveredBy(compacted) + 1;
+            openActive(baseSequence);
+            this.nextSequence = baseSequence;
+        } else {
+            this.sealedSegments.addAll(segments.subList(0, segments.size() - 1));
+            recoverActive(segments.get(segments.size() - 1));
+        }
+        this.durableSequence = this.nextSequence - 1;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "command-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Returns the sequence number of the record; it is durable once awaitDurable(sequence) returns.
+    public long append(Command command) throws IOException {
+
+        return append(command, false);
+    }
+
+    // Logs an undo of the command when reverse is set.
+    public synchronized long append(Command command, boolean reverse) throws IOException {
+
+        this.payload.clear();
+        this.codec.encode(command, reverse, this.payload);
+        this.payload.flip();
+        if (this.active.remaining() < HEADER_SIZE + this.payload.remaining()) {
+            roll();
+        }
+        long sequence = this.nextSequence++;
+        this.crc.reset();
+        this.crc.update(this.payload.duplicate());
+        this.crc.update(this.sequenceBytes.clear().putLong(0, sequence));
+        this.active.putInt(this.payload.remaining())
+                .putInt((int) this.crc.getValue())
+                .putLong(sequence)
+                .put(this.payload);
+        return sequence;
+    }
+
+    public synchronized void awaitDurable(long sequence) throws InterruptedException {
+
+        while (this.durableSequence < sequence) {
+            wait();
+        }
+    }
+
+    // Forces everything appended so far to disk. Appends may continue while the pages are written.
+    public void sync() {
+
+        MappedByteBuffer segment;
+        int from;
+        int to;
+        long sequence;
+        synchronized (this) {
+            segment = this.active;
+            from = this.syncedPosition;
+            to = segment.position();
+            sequence = this.nextSequence - 1;
+            if (sequence == this.durableSequence) {
+                return;
+            }
+        }
+        segment.force(from, to - from);
+        synchronized (this) {
+            if (segment == this.active) {
+                this.syncedPosition = Math.max(this.syncedPosition, to);
+            }
+            this.durableSequence = Math.max(this.durableSequence, sequence);
+            notifyAll();
+        }
+    }
+
+    public synchronized long getNextSequence() {
+
+        return this.nextSequence;
+    }
+
+    public boolean canAppend(Command command) {
+
+        return this.codec.canEncode(command);
+    }
+
+    public synchronized int getSegmentCount() {
+
+        return this.sealedSegments.size() + 1;
+    }
+
+    // Executes every journaled command from the given sequence on, e.g. to rebuild receiver state
+    // after a restart. Returns the number of commands replayed.
+    public long replay(long fromSequence) throws IOException {
+
+        return replay(fromSequence, Command::execute);
+    }
+
+    public synchronized long replay(long fromSequence, Consumer<Command> sink) throws IOException {
+
+        long replayed = 0;
+        for (Path segment : this.sealedSegments) {
+            replayed += replayBuffer(map(segment), fromSequence, sink);
+        }
+        ByteBuffer written = this.active.duplicate().flip();
+        replayed += replayBuffer(written, fromSequence, sink);
+        return replayed;
+    }
+
+    // Rewrites the sealed segments into one, keeping only the latest record for each receiver.
+    // Sequence numbers are preserved, so replay offsets stay valid. The old segments are deleted
+    // only once the compacted one is in place; if that is cut short, the next open finishes it.
+    public synchronized void compact() throws IOException {
+
+        if (this.sealedSegments.isEmpty()) {
+            return;
+        }
+        Map<Integer, ByteBuffer> latest = new LinkedHashMap<>();
+        for (Path segment : this.sealedSegments) {
+            ByteBuffer buffer = map(segment);
+            while (buffer.remaining() >= HEADER_SIZE) {
+                int start = buffer.position();
+                int length = buffer.getInt(start);
+                if (length == 0) {
+                    break;
+                }
+                int receiverId = CommandCodec.receiverIdAt(buffer, start + HEADER_SIZE);
+                latest.remove(receiverId);
+                latest.put(receiverId, buffer.slice(start, HEADER_SIZE + length));
+                buffer.position(start + HEADER_SIZE + length);
+            }
+        }
+        if (latest.isEmpty()) {
+            deleteSealed();
+            return;
+        }
+        // Everything before the active segment is covered, whichever records survived.
+        Path compacted = this.directory.resolve(String.format("%s%020d%s", COMPACTED_PREFIX,
+                this.activeBaseSequence - 1, SUFFIX));
+        Path temporary = compacted.resolveSibling(compacted.getFileName() + TEMPORARY_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (ByteBuffer record : latest.values()) {
+                channel.write(record);
+            }
+            channel.force(true);
+        }
+        List<Path> obsolete = new ArrayList<>(this.sealedSegments);
+        Files.move(temporary, compacted, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        for (Path segment : obsolete) {
+            if (!segment.equals(compacted)) {
+                Files.delete(segment);
+            }
+        }
+        this.sealedSegments.clear();
+        this.sealedSegments.add(compacted);
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        this.flusher.shutdownNow();
+        sync();
+        synchronized (this) {
+            this.activeChannel.close();
+        }
+    }
+
+    private void syncQuietly() {
+
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            System.err.println("Command journal sync failed: " + e);
+        }
+    }
+
+    private void roll() throws IOException {
+
+        this.active.force();
+        this.activeChannel.close();
+        this.sealedSegments.add(segmentPath(this.activeBaseSequence));
+        this.durableSequence = this.nextSequence - 1;
+        notifyAll();
+        openActive(this.nextSequence);
+    }
+
+    private void openActive(long baseSequence) throws IOException {
+
+        this.activeChannel = FileChannel.open(segmentPath(baseSequence), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.active = this.activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentBytes);
+        this.activeBaseSequence = baseSequence;
+        this.syncedPosition = 0;
+    }
+
+    // Finds the end of the last valid record, so a torn write after a crash is overwritten.
+    private void recoverActive(Path segment) throws IOException {
+
+        long baseSequence = sequenceOf(segment);
+        openActive(baseSequence);
+        this.nextSequence = baseSequence;
+        ByteBuffer buffer = this.active.duplicate();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length <= 0 || length > buffer.remaining() - HEADER_SIZE || !isIntact(buffer, start, length)) {
+                break;
+            }
+            this.nextSequence = buffer.getLong(start + Integer.BYTES + Integer.BYTES) + 1;
+            buffer.position(start + HEADER_SIZE + length);
+        }
+        this.active.position(buffer.position());
+        this.syncedPosition = buffer.position();
+    }
+
+    private long replayBuffer(ByteBuffer buffer, long fromSequence, Consumer<Command> sink) {
+
+        long replayed = 0;
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length == 0) {
+                break;
+            }
+            if (!isIntact(buffer, start, length)) {
+                throw new IllegalStateException("Corrupt journal record at position " + start);
+            }
+            long sequence = buffer.getLong(start + Integer.BYTES + Integer.BYTES);
+            if (sequence >= fromSequence) {
+                sink.accept(this.codec.decode(buffer.slice(start + HEADER_SIZE, length)));
+                replayed++;
+            }
+            buffer.position(start + HEADER_SIZE + length);
+        }
+        return replayed;
+    }
+
+    private static boolean isIntact(ByteBuffer buffer, int start, int length) {
+
+        CRC32C check = new CRC32C();
+        check.update(buffer.slice(start + HEADER_SIZE, length));
+        check.update(buffer.slice(start + Integer.BYTES + Integer.BYTES, Long.BYTES));
+        return (int) check.getValue() == buffer.getInt(start + Integer.BYTES);
+    }
+
+    // Keeps the newest compacted segment and deletes what it covers: older compacted segments,
+    // plain segments starting at or before its covered sequence, and unfinished temporaries. These
+    // are only left behind when a compaction was interrupted.
+    private Path recoverCompaction() throws IOException {
+
+        List<Path> compacted = listSegments(COMPACTED_PREFIX);
+        try (Stream<Path> files = Files.list(this.directory)) {
+            List<Path> temporaries = files.filter(path -> path.getFileName().toString().endsWith(TEMPORARY_SUFFIX))
+                    .toList();
+            for (Path temporary : temporaries) {
+                Files.delete(temporary);
+            }
+        }
+        if (compacted.isEmpty()) {
+            return null;
+        }
+        Path newest = compacted.get(compacted.size() - 1);
+        long covered = coveredBy(newest);
+        for (Path older : compacted.subList(0, compacted.size() - 1)) {
+            Files.delete(older);
+        }
+        for (Path segment : listSegments(PREFIX)) {
+            if (sequenceOf(segment) <= covered) {
+                Files.delete(segment);
+            }
+        }
+        return newest;
+    }
+
+    // Makes the compacted segment's rename durable before the segments it replaces are deleted.
+    // Not every platform can open a directory; there the rename is left to the file system.
+    private void syncDirectory() {
+
+        try (FileChannel channel = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort.
+        }
+    }
+
+    private void deleteSealed() throws IOException {
+
+        for (Path segment : this.sealedSegments) {
+            Files.delete(segment);
+        }
+        this.sealedSegments.clear();
+    }
+
+    private static ByteBuffer map(Path segment) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // Plain segments sorted by base sequence, or compacted ones sorted by covered sequence.
+    private List<Path> listSegments(String prefix) throws IOException {
+
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix)
+                            && path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparingLong(path -> numberIn(path, prefix)))
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long baseSequence) {
+
+        return this.directory.resolve(String.format("%s%020d%s", PREFIX, baseSequence, SUFFIX));
+    }
+
+    private static long sequenceOf(Path segment) {
+
+        return numberIn(segment, PREFIX);
+    }
+
+    private static long coveredBy(Path compacted) {
+
+        return numberIn(compacted, COMPACTED_PREFIX);
+    }
+
+    private static long numberIn(Path segment, String prefix) {
+
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class JournalDemo {
+    private static final int SEGMENT_BYTES = 1024 * 1024;
+    private static final int BENCHMARK_APPENDS = 1_000_000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        Path directory = Files.createTempDirectory("command-journal");
+        try {
+            Light kitchen = new Light();
+            try (CommandJournal journal = new CommandJournal(directory, SEGMENT_BYTES, 5, codecFor(kitchen))) {
+                RemoteControl remoteControl = new RemoteControl(null, journal);
+                remoteControl.setCommand(new LightOnCommand(kitchen));
+                remoteControl.pressButton();
+                remoteControl.setCommand(new LightOffCommand(kitchen));
+                remoteControl.pressButton();
+                remoteControl.setCommand(new LightOnCommand(kitchen));
+                remoteControl.pressButton();
+                remoteControl.undo();
+                journal.awaitDurable(journal.getNextSequence() - 1);
+            }
+
+            System.out.println("\n--- After restart ---");
+            Light restored = new Light();
+            try (CommandJournal journal = new CommandJournal(directory, SEGMENT_BYTES, 5, codecFor(restored))) {
+                long replayed = journal.replay(0);
+                System.out.println("Replayed " + replayed + " commands; light is " + (restored.isOn() ? "ON" : "OFF"));
+            }
+
+            checkInterruptedCompaction(directory.resolve("interrupted"));
+
+            System.out.println("\n--- Append throughput ---");
+            benchmark(directory.resolve("benchmark"));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    private static CommandCodec codecFor(Light light) {
+
+        CommandCodec codec = new CommandCodec();
+        codec.registerReceiver(1, light);
+        codec.registerCommand(1, LightOnCommand.class, (Light receiver) -> new LightOnCommand(receiver));
+        codec.registerCommand(2, LightOffCommand.class, (Light receiver) -> new LightOffCommand(receiver));
+        return codec;
+    }
+
+    private static void benchmark(Path directory) throws IOException, InterruptedException {
+
+        Light[] lights = new Light[16];
+        CommandCodec codec = new CommandCodec();
+        codec.registerCommand(1, LightOnCommand.class, (Light receiver) -> new LightOnCommand(receiver));
+        codec.registerCommand(2, LightOffCommand.class, (Light receiver) -> new LightOffCommand(receiver));
+        Command[] commands = new Command[lights.length * 2];
+        for (int i = 0; i < lights.length; i++) {
+            lights[i] = new Light();
+            codec.registerReceiver(i, lights[i]);
+            commands[2 * i] = new LightOnCommand(lights[i]);
+            commands[2 * i + 1] = new LightOffCommand(lights[i]);
+        }
+        try (CommandJournal journal = new CommandJournal(directory, 4 * SEGMENT_BYTES, 5, codec)) {
+            long start = System.nanoTime();
+            long last = 0;
+            for (int i = 0; i < BENCHMARK_APPENDS; i++) {
+                last = journal.append(commands[i % commands.length]);
+            }
+            journal.sync();
+            journal.awaitDurable(last);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d durable appends in %.2f s (%.0f appends/s), %d segments%n",
+                    BENCHMARK_APPENDS, seconds, BENCHMARK_APPENDS / seconds, journal.getSegmentCount());
+
+            journal.compact();
+            PrintStream console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            long replayed;
+            try {
+                replayed = journal.replay(0);
+            } finally {
+                System.setOut(console);
+            }
+            System.out.println("After compaction: " + journal.getSegmentCount() + " segments, "
+                    + replayed + " commands to replay");
+        }
+    }
+
+    // Simulates a crash between moving the compacted segment into place and deleting the segments
+    // it replaces, by putting those back. Reopening must not replay their records a second time.
+    private static void checkInterruptedCompaction(Path directory) throws IOException {
+
+        Light light = new Light();
+        CommandCodec codec = codecFor(light);
+        Command command = new LightOffCommand(light);
+        Map<Path, byte[]> before = new HashMap<>();
+        long expected;
+        try (CommandJournal journal = new CommandJournal(directory, 4096, 5, codec)) {
+            for (int i = 0; i < 1000; i++) {
+                journal.append(command);
+            }
+            journal.sync();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    before.put(file, Files.readAllBytes(file));
+                }
+            }
+            journal.compact();
+            expected = journal.replay(0, replayed -> {
+            });
+        }
+        for (Map.Entry<Path, byte[]> file : before.entrySet()) {
+            if (!Files.exists(file.getKey())) {
+                Files.write(file.getKey(), file.getValue());
+            }
+        }
+        try (CommandJournal journal = new CommandJournal(directory, 4096, 5, codec)) {
+            long replayed = journal.replay(0, ignored -> {
+            });
+            if (replayed != expected) {
+                throw new IllegalStateException("Replayed " + replayed
+                        + " commands after an interrupted compaction, expected " + expected);
+            }
+            System.out.println("Interrupted compaction recovered: " + replayed + " commands to replay");
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
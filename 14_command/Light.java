@@ -1,12 +1,20 @@
 public class Light {
+    private boolean on = false;
 
     public void turnOn() {
 
+        this.on = true;
         System.out.println("The light is ON");
     }
 
     public void turnOff() {
 
+        this.on = false;
         System.out.println("The light is OFF");
     }
+
+    public boolean isOn() {
+
+        return this.on;
+    }
 }
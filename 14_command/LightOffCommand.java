@@ -1,4 +1,4 @@
-public class LightOffCommand implements Command {
+public class LightOffCommand implements CoalescableCommand {
     private Light light;
 
     public LightOffCommand(Light light) {
@@ -11,4 +11,16 @@ public class LightOffCommand implements Command {
 
         this.light.turnOff();
     }
+
+    @Override
+    public void undo() {
+
+        this.light.turnOn();
+    }
+
+    @Override
+    public Object getReceiver() {
+
+        return this.light;
+    }
 }
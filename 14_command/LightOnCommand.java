@@ -1,4 +1,4 @@
-public class LightOnCommand implements Command {
+public class LightOnCommand implements CoalescableCommand {
     private Light light;
 
     public LightOnCommand(Light light) {
@@ -11,4 +11,16 @@ public class LightOnCommand implements Command {
 
         this.light.turnOn();
     }
+
+    @Override
+    public void undo() {
+
+        this.light.turnOff();
+    }
+
+    @Override
+    public Object getReceiver() {
+
+        return this.light;
+    }
 }
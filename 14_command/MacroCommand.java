@@ -0,0 +1,25 @@
+// Several commands executed as one step and undone as one step, in reverse order.
+public class MacroCommand implements Command {
+    private final Command[] commands;
+
+    public MacroCommand(Command... commands) {
+
+        this.commands = commands.clone();
+    }
+
+    @Override
+    public void execute() {
+
+        for (Command command : this.commands) {
+            command.execute();
+        }
+    }
+
+    @Override
+    public void undo() {
+
+        for (int i = this.commands.length - 1; i >= 0; i--) {
+            this.commands[i].undo();
+        }
+    }
+}
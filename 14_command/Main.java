@@ -1,6 +1,6 @@
 public class Main {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
 
         Light livingRoomLight = new Light();
 
@@ -16,5 +16,58 @@ public class Main {
         remoteControl.setCommand(lightOff);
         System.out.println("Pressing button...");
         remoteControl.pressButton();
+
+        System.out.println("Undoing...");
+        remoteControl.undo();
+        System.out.println("Redoing...");
+        remoteControl.redo();
+
+        Light kitchenLight = new Light();
+        remoteControl.setCommand(new MacroCommand(new LightOnCommand(livingRoomLight), new LightOnCommand(kitchenLight)));
+        System.out.println("Pressing the all-lights-on button...");
+        remoteControl.pressButton();
+        System.out.println("Undoing the macro...");
+        remoteControl.undo();
+
+        System.out.println("\n--- Batched remote: on, off, on ---");
+        try (CommandExecutor executor = new CommandExecutor(16, 10)) {
+            RemoteControl batchedRemote = new RemoteControl(executor);
+            for (Command command : new Command[]{lightOn, lightOff, lightOn}) {
+                batchedRemote.setCommand(command);
+                batchedRemote.pressButton();
+            }
+            executor.flush();
+            CommandExecutorStats stats = executor.stats();
+            System.out.printf("%d submitted, %d executed, coalescing ratio %.2f, %.0f commands/s%n",
+                    stats.submitted(), stats.executed(), stats.coalescingRatio(), stats.commandsPerSecond());
+        }
+
+        checkFlushAfterWorkerDeath(lightOn);
+    }
+
+    // A command that throws an Error kills the worker; flush() must report that instead of waiting.
+    private static void checkFlushAfterWorkerDeath(Command harmless) throws InterruptedException {
+
+        try (CommandExecutor executor = new CommandExecutor(1, 0)) {
+            executor.submit(new Command() {
+                @Override
+                public void execute() {
+
+                    throw new AssertionError("command failed");
+                }
+
+                @Override
+                public void undo() {
+                }
+            });
+            executor.submit(harmless);
+            try {
+                executor.flush();
+            } catch (IllegalStateException e) {
+                System.out.println("flush() after the worker died: " + e.getMessage());
+                return;
+            }
+            throw new IllegalStateException("flush() returned although a command never ran");
+        }
     }
 }
@@ -1,13 +1,123 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 public class RemoteControl {
+    private static final int DEFAULT_HISTORY_CAPACITY = 64;
+
     private Command command;
+    private final CommandExecutor executor;
+    private final CommandJournal journal;
+    private final CommandHistory history;
+    // Reverse of each command undone through the executor, so repeated undos do not allocate.
+    // Cleared when it outgrows the history, since older commands can no longer be undone.
+    private final Map<Command, ReverseCommand> reverses = new IdentityHashMap<>();
+    private final int historyCapacity;
+
+    public RemoteControl() {
+
+        this(null, null);
+    }
+
+    // With an executor, button presses are queued and run in batches instead of inline.
+    public RemoteControl(CommandExecutor executor) {
+
+        this(executor, null);
+    }
 
+    // With a journal, every pressed command is logged before it runs, so it can be replayed later.
+    public RemoteControl(CommandExecutor executor, CommandJournal journal) {
+
+        this(executor, journal, DEFAULT_HISTORY_CAPACITY);
+    }
+
+    public RemoteControl(CommandExecutor executor, CommandJournal journal, int historyCapacity) {
+
+        this.executor = executor;
+        this.journal = journal;
+        this.history = new CommandHistory(historyCapacity);
+        this.historyCapacity = historyCapacity;
+    }
+
+    // A journaled remote only accepts commands its journal can record, e.g. no MacroCommand.
     public void setCommand(Command command) {
 
+        if (this.journal != null && !this.journal.canAppend(command)) {
+            throw new IllegalArgumentException("Command " + command.getClass().getName()
+                    + " cannot be journaled; register it with the journal's CommandCodec");
+        }
         this.command = command;
     }
 
     public void pressButton() {
 
-        this.command.execute();
+        journal(this.command, false);
+        dispatch(this.command, false);
+        this.history.push(this.command);
+    }
+
+    // Undo is journaled as the reverse of the command and redo as the command itself, so a replay
+    // ends in the same state.
+    public boolean undo() {
+
+        Command previous = this.history.undo();
+        if (previous == null) {
+            return false;
+        }
+        journal(previous, true);
+        dispatch(previous, true);
+        return true;
+    }
+
+    public boolean redo() {
+
+        Command next = this.history.redo();
+        if (next == null) {
+            return false;
+        }
+        journal(next, false);
+        dispatch(next, false);
+        return true;
+    }
+
+    public CommandHistory getHistory() {
+
+        return this.history;
+    }
+
+    private void journal(Command command, boolean reverse) {
+
+        if (this.journal != null) {
+            try {
+                this.journal.append(command, reverse);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not journal command", e);
+            }
+        }
+    }
+
+    private void dispatch(Command command, boolean reverse) {
+
+        if (this.executor != null) {
+            this.executor.submit(reverse ? reverseOf(command) : command);
+        } else if (reverse) {
+            command.undo();
+        } else {
+            command.execute();
+        }
+    }
+
+    private ReverseCommand reverseOf(Command command) {
+
+        ReverseCommand reverse = this.reverses.get(command);
+        if (reverse == null) {
+            if (this.reverses.size() >= 2 * this.historyCapacity) {
+                this.reverses.clear();
+            }
+            reverse = new ReverseCommand(command);
+            this.reverses.put(command, reverse);
+        }
+        return reverse;
     }
 }
@@ -0,0 +1,23 @@
+// Runs another command backwards: execute undoes it and undo redoes it. Used to queue an undo on
+// a CommandExecutor and to replay journaled undos. It is not coalescable, so it keeps its place
+// in a batch.
+public class ReverseCommand implements Command {
+    private final Command command;
+
+    public ReverseCommand(Command command) {
+
+        this.command = command;
+    }
+
+    @Override
+    public void execute() {
+
+        this.command.undo();
+    }
+
+    @Override
+    public void undo() {
+
+        this.command.execute();
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.List;
+import java.util.Random;
+
+public class BatchBenchmark {
+    private static final int ROWS = 4_000_000;
+    private static final int RUNS = 5;
+    // Keeps the results observable so the JIT cannot drop the loops.
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+
+        List<String> variables = List.of("price", "shipping", "discount", "tax");
+        CompiledExpression rule = ExpressionCompiler.compile(ExpressionOptimizer.optimize(
+                ExpressionParser.parse("price + shipping - discount + tax - (discount - 5) + 0", variables)));
+        Random random = new Random(11);
+        int[][] columns = new int[variables.size()][ROWS];
+        for (int[] column : columns) {
+            for (int i = 0; i < ROWS; i++) {
+                column[i] = random.nextInt(10_000);
+            }
+        }
+        int[] expected = new int[ROWS];
+        int[] out = new int[ROWS];
+
+        System.out.printf("%d rows, program of %d ints, %d cores%n", ROWS, rule.getProgram().length,
+                Runtime.getRuntime().availableProcessors());
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            handWritten(columns, expected);
+            long handNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            rule.interpretBatch(columns, out, false);
+            long batchNanos = System.nanoTime() - start;
+            check(expected, out);
+
+            start = System.nanoTime();
+            rule.interpretBatch(columns, out, true);
+            long parallelNanos = System.nanoTime() - start;
+            check(expected, out);
+
+            System.out.printf("run %d: hand-written %.2f ns/row, batch %.2f ns/row, parallel batch %.2f ns/row%n",
+                    run, (double) handNanos / ROWS, (double) batchNanos / ROWS, (double) parallelNanos / ROWS);
+        }
+        sink = out[ROWS - 1];
+    }
+
+    private static void handWritten(int[][] columns, int[] out) {
+
+        int[] price = columns[0];
+        int[] shipping = columns[1];
+        int[] discount = columns[2];
+        int[] tax = columns[3];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = price[i] + shipping[i] - discount[i] + tax[i] - (discount[i] - 5);
+        }
+    }
+
+    private static void check(int[] expected, int[] actual) {
+
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != actual[i]) {
+                throw new IllegalStateException("Row " + i + ": expected " + expected[i] + " but was " + actual[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Columnar, operator-at-a-time evaluation of a compiled expression. Rows are processed in chunks
+// small enough to stay in cache; each operator runs a plain loop over a whole chunk, which the
+// JIT can auto-vectorize.
+public class BatchEvaluator {
+    private static final int CHUNK = 2048;
+
+    private BatchEvaluator() {
+    }
+
+    public static void evaluate(CompiledExpression expression, int[][] columns, int[] out, boolean parallel) {
+
+        int rows = out.length;
+        checkColumns(columns, rows);
+        int[] program = expression.getProgram();
+        int registers = Math.max(1, expression.getMaxStack());
+        if (!parallel) {
+            evaluateRange(program, registers, columns, out, 0, rows);
+            return;
+        }
+        int slices = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), (rows + CHUNK - 1) / CHUNK));
+        int sliceRows = (rows + slices - 1) / slices;
+        IntStream.range(0, slices).parallel().forEach(slice -> {
+            int from = slice * sliceRows;
+            evaluateRange(program, registers, columns, out, from, Math.min(rows, from + sliceRows));
+        });
+    }
+
+    // Gathers each row and calls interpret(row), for expressions that have no compiled program.
+    public static void evaluateRows(Expression expression, int[][] columns, int[] out) {
+
+        checkColumns(columns, out.length);
+        int[] row = new int[columns.length];
+        for (int i = 0; i < out.length; i++) {
+            for (int column = 0; column < columns.length; column++) {
+                row[column] = columns[column][i];
+            }
+            out[i] = expression.interpret(row);
+        }
+    }
+
+    private static void checkColumns(int[][] columns, int rows) {
+
+        for (int[] column : columns) {
+            if (column.length < rows) {
+                throw new IllegalArgumentException("Column has " + column.length + " rows, expected " + rows);
+            }
+        }
+    }
+
+    private static void evaluateRange(int[] program, int registers, int[][] columns, int[] out, int from, int to) {
+
+        int[][] stack = new int[registers][CHUNK];
+        for (int start = from; start < to; start += CHUNK) {
+            int length = Math.min(CHUNK, to - start);
+            int top = -1;
+            int pc = 0;
+            while (pc < program.length) {
+                switch (program[pc++]) {
+                    case CompiledExpression.PUSH:
+                        Arrays.fill(stack[++top], 0, length, program[pc++]);
+                        break;
+                    case CompiledExpression.LOAD:
+                        System.arraycopy(columns[program[pc++]], start, stack[++top], 0, length);
+                        break;
+                    case CompiledExpression.ADD:
+                        add(stack[top - 1], stack[top], length);
+                        top--;
+                        break;
+                    case CompiledExpression.SUB:
+                        subtract(stack[top - 1], stack[top], length);
+                        top--;
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown opcode " + program[pc - 1]);
+                }
+            }
+            System.arraycopy(stack[0], 0, out, start, length);
+        }
+    }
+
+    private static void add(int[] target, int[] operand, int length) {
+
+        for (int i = 0; i < length; i++) {
+            target[i] += operand[i];
+        }
+    }
+
+    private static void subtract(int[] target, int[] operand, int length) {
+
+        for (int i = 0; i < length; i++) {
+            target[i] -= operand[i];
+        }
+    }
+}
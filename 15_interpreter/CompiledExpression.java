@@ -0,0 +1,89 @@
+// An expression flattened into a postfix program for a small stack machine: PUSH takes the next
+// int as its operand, LOAD takes a column index, ADD and SUB pop two values and push the result.
+public class CompiledExpression implements Expression {
+    public static final int PUSH = 0;
+    public static final int ADD = 1;
+    public static final int SUB = 2;
+    public static final int LOAD = 3;
+
+    // Evaluation never calls out of run, so each thread can keep reusing one operand stack.
+    private static final ThreadLocal<int[]> STACKS = ThreadLocal.withInitial(() -> new int[16]);
+
+    private final int[] program;
+    private final int maxStack;
+
+    public CompiledExpression(int[] program, int maxStack) {
+
+        this.program = program;
+        this.maxStack = maxStack;
+    }
+
+    @Override
+    public int interpret() {
+
+        return run(null);
+    }
+
+    @Override
+    public int interpret(int[] row) {
+
+        return run(row);
+    }
+
+    private int run(int[] row) {
+
+        int[] program = this.program;
+        int[] stack = STACKS.get();
+        if (stack.length < this.maxStack) {
+            stack = new int[this.maxStack];
+            STACKS.set(stack);
+        }
+        int top = -1;
+        int pc = 0;
+        while (pc < program.length) {
+            switch (program[pc++]) {
+                case PUSH:
+                    stack[++top] = program[pc++];
+                    break;
+                case ADD:
+                    top--;
+                    stack[top] = stack[top] + stack[top + 1];
+                    break;
+                case SUB:
+                    top--;
+                    stack[top] = stack[top] - stack[top + 1];
+                    break;
+                case LOAD:
+                    if (row == null) {
+                        throw new UnsupportedOperationException("Expression has variables; use interpret(row) or interpretBatch");
+                    }
+                    stack[++top] = row[program[pc++]];
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + program[pc - 1] + " at " + (pc - 1));
+            }
+        }
+        return stack[0];
+    }
+
+    @Override
+    public void interpretBatch(int[][] columns, int[] out) {
+
+        BatchEvaluator.evaluate(this, columns, out, false);
+    }
+
+    public void interpretBatch(int[][] columns, int[] out, boolean parallel) {
+
+        BatchEvaluator.evaluate(this, columns, out, parallel);
+    }
+
+    public int[] getProgram() {
+
+        return this.program.clone();
+    }
+
+    public int getMaxStack() {
+
+        return this.maxStack;
+    }
+}
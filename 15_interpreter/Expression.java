@@ -1,4 +1,23 @@
 public interface Expression {
 
     int interpret();
+
+    // Evaluates the expression for a single row, where each variable reads its column of row.
+    default int interpret(int[] row) {
+
+        return interpret();
+    }
+
+    // Evaluates the expression for every row: variables read their column, and out[i] receives
+    // the result for row i.
+    // Expressions the compiler does not know, such as generated ones, are evaluated row by row.
+    default void interpretBatch(int[][] columns, int[] out) {
+
+        CompiledExpression compiled = ExpressionCompiler.tryCompile(this);
+        if (compiled != null) {
+            BatchEvaluator.evaluate(compiled, columns, out, false);
+        } else {
+            BatchEvaluator.evaluateRows(this, columns, out);
+        }
+    }
 }
@@ -0,0 +1,80 @@
+import java.util.Random;
+
+public class ExpressionBenchmark {
+    // Large enough that the generated code is split into several segment methods.
+    private static final int NODES = 8_001;
+    private static final int EVALUATIONS = 20_000;
+    private static final int VARIABLES = 16;
+    private static final int ROWS = 1024;
+    // Keeps the results observable so the JIT cannot drop the loops.
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+
+        Random random = new Random(7);
+        Expression tree = randomRule(random, NODES);
+        CompiledExpression flat = ExpressionCompiler.compile(tree);
+        Expression generated = ExpressionClassGenerator.generate(flat);
+        // Each evaluation reads a different row, so the JIT cannot fold any evaluator to a constant.
+        int[][] rows = new int[ROWS][VARIABLES];
+        for (int[] row : rows) {
+            for (int i = 0; i < VARIABLES; i++) {
+                row[i] = random.nextInt(1000);
+            }
+        }
+        for (int[] row : rows) {
+            if (tree.interpret(row) != flat.interpret(row) || tree.interpret(row) != generated.interpret(row)) {
+                throw new IllegalStateException("Evaluators disagree");
+            }
+        }
+        if (generated instanceof CompiledExpression) {
+            throw new IllegalStateException("Rule was not generated");
+        }
+
+        System.out.printf("%d-node expression over %d variables, program of %d ints%n", NODES, VARIABLES,
+                flat.getProgram().length);
+        for (int run = 0; run < 3; run++) {
+            System.out.printf("run %d: tree %.1f us, flat %.1f us, generated %.1f us%n", run,
+                    measure(tree, rows), measure(flat, rows), measure(generated, rows));
+        }
+    }
+
+    // A left-leaning mix of sums and differences, like a long rule with a few nested groups. Half
+    // of the leaves are variables.
+    private static Expression randomRule(Random random, int nodes) {
+
+        Expression rule = randomLeaf(random);
+        int used = 1;
+        while (used + 2 <= nodes) {
+            Expression operand = randomLeaf(random);
+            if (used + 4 <= nodes && random.nextInt(4) == 0) {
+                operand = new PlusExpression(operand, randomLeaf(random));
+                used += 2;
+            }
+            rule = random.nextBoolean() ? new PlusExpression(rule, operand) : new MinusExpression(rule, operand);
+            used += 2;
+        }
+        return rule;
+    }
+
+    private static Expression randomLeaf(Random random) {
+
+        if (random.nextBoolean()) {
+            int column = random.nextInt(VARIABLES);
+            return new VariableExpression("v" + column, column);
+        }
+        return new NumberExpression(random.nextInt(1000));
+    }
+
+    private static double measure(Expression expression, int[][] rows) {
+
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < EVALUATIONS; i++) {
+            checksum += expression.interpret(rows[i & (ROWS - 1)]);
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / EVALUATIONS;
+        sink = checksum;
+        return micros;
+    }
+}
@@ -0,0 +1,69 @@
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Parsed and optimized expressions keyed by their source text and variable names, evicted
+// least-recently-used first.
+public class ExpressionCache {
+    private final Map<Key, Expression> entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    public ExpressionCache(int maxSize) {
+
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Expression> eldest) {
+
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public Expression get(String source) {
+
+        return get(source, List.of());
+    }
+
+    // Parsing happens outside the lock; two threads missing on the same text may both parse it.
+    // The variable list is part of the key, since it decides which column each name reads.
+    public Expression get(String source, List<String> variables) {
+
+        Key key = new Key(source, List.copyOf(variables));
+        synchronized (this) {
+            Expression cached = this.entries.get(key);
+            if (cached != null) {
+                this.hits++;
+                return cached;
+            }
+            this.misses++;
+        }
+        Expression parsed = ExpressionOptimizer.optimize(ExpressionParser.parse(source, variables));
+        synchronized (this) {
+            this.entries.put(key, parsed);
+        }
+        return parsed;
+    }
+
+    public synchronized int size() {
+
+        return this.entries.size();
+    }
+
+    public synchronized long getHits() {
+
+        return this.hits;
+    }
+
+    public synchronized long getMisses() {
+
+        return this.misses;
+    }
+
+    // The variable list is copied, so a caller changing its list cannot corrupt the entry.
+    private record Key(String source, List<String> variables) {
+    }
+}
@@ -0,0 +1,362 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Turns a compiled expression into JVM bytecode: a hidden class implementing Expression whose
+// interpret(int[] row) is the straight-line program, so the JIT compiles it like hand-written code.
+// A variable becomes an array load from the row argument. interpret() runs the same code when there
+// are no variables, and throws UnsupportedOperationException otherwise.
+//
+// HotSpot does not JIT-compile methods over 8000 bytes of bytecode, so a long program is cut into
+// static segment methods below that size. Each cut falls where the stack holds a single value, the
+// running result, which the next segment takes as its argument. Chains of sums and differences
+// have such a point after every operand.
+public class ExpressionClassGenerator {
+    // Largest method HotSpot compiles, less the iload_0 and ireturn around a segment body.
+    private static final int MAX_SEGMENT_LENGTH = 8000 - 2;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int ACONST_NULL = 0x01;
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int IADD = 0x60;
+    private static final int ISUB = 0x64;
+    private static final int IRETURN = 0xac;
+    private static final int ILOAD_0 = 0x1a;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int IALOAD = 0x2e;
+    private static final int DUP = 0x59;
+    private static final int NEW = 0xbb;
+    private static final int ATHROW = 0xbf;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int RETURN = 0xb1;
+
+    private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constants = new DataOutputStream(this.constantBytes);
+    private final Map<Integer, Integer> integerConstants = new HashMap<>();
+    private int constantCount = 1;
+
+    private ExpressionClassGenerator() {
+    }
+
+    // Returns the flat program itself when it cannot be cut into segments the JIT compiles.
+    public static Expression generate(CompiledExpression compiled) {
+
+        try {
+            byte[] classFile = new ExpressionClassGenerator().classFile(compiled);
+            if (classFile == null) {
+                return compiled;
+            }
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+            return (Expression) lookup.lookupClass().getDeclaredConstructor().newInstance();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not load generated expression", e);
+        }
+    }
+
+    private byte[] classFile(CompiledExpression compiled) throws IOException {
+
+        int thisClass = classConstant("GeneratedExpression");
+        int superClass = classConstant("java/lang/Object");
+        int expressionInterface = classConstant("Expression");
+        int objectInit = methodConstant(superClass, "<init>", "()V");
+        int initName = utf8("<init>");
+        int voidDescriptor = utf8("()V");
+        int interpretName = utf8("interpret");
+        int intDescriptor = utf8("()I");
+        int rowDescriptor = utf8("([I)I");
+        int segmentDescriptor = utf8("(I[I)I");
+        int codeName = utf8("Code");
+        int[] program = compiled.getProgram();
+        List<byte[]> segments = segments(program);
+        if (segments == null) {
+            return null;
+        }
+        int[] segmentNames = new int[segments.size()];
+        int[] segmentMethods = new int[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            segmentNames[i] = utf8("segment" + i);
+            int nameAndType = entry(CONSTANT_NAME_AND_TYPE, segmentNames[i], segmentDescriptor);
+            segmentMethods[i] = entry(CONSTANT_METHODREF, thisClass, nameAndType);
+        }
+        // A single segment is the whole body; otherwise the body calls each segment in turn.
+        byte[] rowCode = segments.size() == 1 ? segments.get(0) : callSegments(segmentMethods, ALOAD_1);
+        byte[] interpretCode;
+        if (hasVariables(program)) {
+            interpretCode = throwUnsupported();
+        } else {
+            // Code without variables never reads the row, so interpret() can pass none.
+            interpretCode = segments.size() == 1 ? rowCode : callSegments(segmentMethods, ACONST_NULL);
+        }
+        if (rowCode.length > MAX_SEGMENT_LENGTH) {
+            return null;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(61);
+        out.writeShort(this.constantCount);
+        this.constants.flush();
+        this.constantBytes.writeTo(out);
+        out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(1);
+        out.writeShort(expressionInterface);
+        out.writeShort(0);
+        out.writeShort(3 + (segments.size() == 1 ? 0 : segments.size()));
+
+        byte[] initCode = {(byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectInit >> 8), (byte) objectInit,
+                (byte) RETURN};
+        // A load holds the row and the column index before it leaves one value, one more than the
+        // compiler counts.
+        int maxStack = compiled.getMaxStack() + 1;
+        writeMethod(out, ACC_PUBLIC, initName, voidDescriptor, codeName, 1, 1, initCode);
+        writeMethod(out, ACC_PUBLIC, interpretName, intDescriptor, codeName, Math.max(3, maxStack), 1, interpretCode);
+        writeMethod(out, ACC_PUBLIC, interpretName, rowDescriptor, codeName, maxStack, 2, rowCode);
+        if (segments.size() > 1) {
+            for (int i = 0; i < segments.size(); i++) {
+                writeMethod(out, ACC_PRIVATE | ACC_STATIC, segmentNames[i], segmentDescriptor, codeName, maxStack, 2,
+                        segments.get(i));
+            }
+        }
+        out.writeShort(0);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    // Bodies of at most MAX_SEGMENT_LENGTH bytes, each ending in ireturn, and every one after the
+    // first starting with iload_0. Locals are the running result and the row in both interpret(row)
+    // and the segments, so the same bytes serve either. Returns null if no cut point is close enough.
+    private List<byte[]> segments(int[] program) {
+
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        int[] cuts = new int[16];
+        int cutCount = 0;
+        int depth = 0;
+        int pc = 0;
+        while (pc < program.length) {
+            int opcode = program[pc++];
+            if (opcode == CompiledExpression.PUSH) {
+                pushConstant(code, program[pc++]);
+                depth++;
+            } else if (opcode == CompiledExpression.ADD) {
+                code.write(IADD);
+                depth--;
+            } else if (opcode == CompiledExpression.SUB) {
+                code.write(ISUB);
+                depth--;
+            } else if (opcode == CompiledExpression.LOAD) {
+                code.write(ALOAD_1);
+                pushConstant(code, program[pc++]);
+                code.write(IALOAD);
+                depth++;
+            } else {
+                throw new IllegalArgumentException("Unknown opcode " + opcode);
+            }
+            if (depth == 1) {
+                if (cutCount == cuts.length) {
+                    cuts = Arrays.copyOf(cuts, cutCount * 2);
+                }
+                cuts[cutCount++] = code.size();
+            }
+        }
+        byte[] body = code.toByteArray();
+        List<byte[]> segments = new ArrayList<>();
+        int start = 0;
+        int previous = 0;
+        for (int i = 0; i < cutCount; i++) {
+            if (cuts[i] - start > MAX_SEGMENT_LENGTH) {
+                if (previous == start) {
+                    return null;
+                }
+                segments.add(segment(body, start, previous, segments.isEmpty()));
+                start = previous;
+                if (cuts[i] - start > MAX_SEGMENT_LENGTH) {
+                    return null;
+                }
+            }
+            previous = cuts[i];
+        }
+        segments.add(segment(body, start, body.length, segments.isEmpty()));
+        return segments;
+    }
+
+    private static byte[] segment(byte[] body, int from, int to, boolean first) {
+
+        ByteArrayOutputStream code = new ByteArrayOutputStream(to - from + 2);
+        if (!first) {
+            code.write(ILOAD_0);
+        }
+        code.write(body, from, to - from);
+        code.write(IRETURN);
+        return code.toByteArray();
+    }
+
+    // result = segment0(0, row); result = segment1(result, row); ...; return result
+    private static byte[] callSegments(int[] segmentMethods, int loadRow) {
+
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        code.write(ICONST_0);
+        for (int method : segmentMethods) {
+            code.write(loadRow);
+            code.write(INVOKESTATIC);
+            code.write(method >> 8);
+            code.write(method);
+        }
+        code.write(IRETURN);
+        return code.toByteArray();
+    }
+
+    private static boolean hasVariables(int[] program) {
+
+        int pc = 0;
+        while (pc < program.length) {
+            int opcode = program[pc++];
+            if (opcode == CompiledExpression.LOAD) {
+                return true;
+            }
+            if (opcode == CompiledExpression.PUSH) {
+                pc++;
+            }
+        }
+        return false;
+    }
+
+    // new UnsupportedOperationException(message); athrow
+    private byte[] throwUnsupported() {
+
+        int exceptionClass = classConstant("java/lang/UnsupportedOperationException");
+        int exceptionInit = methodConstant(exceptionClass, "<init>", "(Ljava/lang/String;)V");
+        int message = entry(CONSTANT_STRING, utf8("Expression has variables; use interpret(row) or interpretBatch"));
+        return new byte[] {(byte) NEW, (byte) (exceptionClass >> 8), (byte) exceptionClass, (byte) DUP,
+                (byte) LDC_W, (byte) (message >> 8), (byte) message,
+                (byte) INVOKESPECIAL, (byte) (exceptionInit >> 8), (byte) exceptionInit, (byte) ATHROW};
+    }
+
+    private void pushConstant(ByteArrayOutputStream code, int value) {
+
+        if (value >= -1 && value <= 5) {
+            code.write(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.write(BIPUSH);
+            code.write(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.write(SIPUSH);
+            code.write(value >> 8);
+            code.write(value);
+        } else {
+            int index = integerConstant(value);
+            if (index < 256) {
+                code.write(LDC);
+                code.write(index);
+            } else {
+                code.write(LDC_W);
+                code.write(index >> 8);
+                code.write(index);
+            }
+        }
+    }
+
+    private static void writeMethod(DataOutputStream out, int access, int name, int descriptor, int codeName,
+                                    int maxStack, int maxLocals, byte[] code) throws IOException {
+
+        out.writeShort(access);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeName);
+        out.writeInt(2 + 2 + 4 + code.length + 2 + 2);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    private int utf8(String value) {
+
+        try {
+            this.constants.writeByte(CONSTANT_UTF8);
+            this.constants.writeUTF(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this.constantCount++;
+    }
+
+    private int classConstant(String internalName) {
+
+        int name = utf8(internalName);
+        return entry(CONSTANT_CLASS, name);
+    }
+
+    private int methodConstant(int owner, String name, String descriptor) {
+
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = entry(CONSTANT_NAME_AND_TYPE, nameIndex, descriptorIndex);
+        return entry(CONSTANT_METHODREF, owner, nameAndType);
+    }
+
+    private int integerConstant(int value) {
+
+        Integer existing = this.integerConstants.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (this.constantCount >= 65535) {
+            throw new IllegalArgumentException("Expression has too many distinct constants");
+        }
+        try {
+            this.constants.writeByte(CONSTANT_INTEGER);
+            this.constants.writeInt(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.integerConstants.put(value, this.constantCount);
+        return this.constantCount++;
+    }
+
+    private int entry(int tag, int... indexes) {
+
+        try {
+            this.constants.writeByte(tag);
+            for (int index : indexes) {
+                this.constants.writeShort(index);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this.constantCount++;
+    }
+}
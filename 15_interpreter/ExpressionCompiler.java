@@ -0,0 +1,79 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+public class ExpressionCompiler {
+
+    private ExpressionCompiler() {
+    }
+
+    public static CompiledExpression compile(Expression expression) {
+
+        CompiledExpression compiled = tryCompile(expression);
+        if (compiled == null) {
+            throw new IllegalArgumentException("Cannot compile " + expression.getClass().getName());
+        }
+        return compiled;
+    }
+
+    // Returns null if the tree contains a node other than the built-in ones.
+    // Walks the tree with an explicit stack, so trees of any depth compile without recursion.
+    public static CompiledExpression tryCompile(Expression expression) {
+
+        int[] program = new int[16];
+        int length = 0;
+        int depth = 0;
+        int maxDepth = 0;
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        pending.push(expression);
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (length + 2 > program.length) {
+                program = Arrays.copyOf(program, program.length * 2);
+            }
+            if (next instanceof Operator operator) {
+                program[length++] = operator.opcode;
+                depth--;
+            } else if (next instanceof NumberExpression number) {
+                program[length++] = CompiledExpression.PUSH;
+                program[length++] = number.getNumber();
+                maxDepth = Math.max(maxDepth, ++depth);
+            } else if (next instanceof VariableExpression variable) {
+                program[length++] = CompiledExpression.LOAD;
+                program[length++] = variable.getColumn();
+                maxDepth = Math.max(maxDepth, ++depth);
+            } else if (next instanceof PlusExpression plus) {
+                pending.push(Operator.ADD);
+                pending.push(plus.getRightExpression());
+                pending.push(plus.getLeftExpression());
+            } else if (next instanceof MinusExpression minus) {
+                pending.push(Operator.SUB);
+                pending.push(minus.getRightExpression());
+                pending.push(minus.getLeftExpression());
+            } else if (next instanceof CompiledExpression compiled) {
+                int[] inlined = compiled.getProgram();
+                while (length + inlined.length > program.length) {
+                    program = Arrays.copyOf(program, program.length * 2);
+                }
+                System.arraycopy(inlined, 0, program, length, inlined.length);
+                length += inlined.length;
+                maxDepth = Math.max(maxDepth, depth + compiled.getMaxStack());
+                depth++;
+            } else {
+                return null;
+            }
+        }
+        return new CompiledExpression(Arrays.copyOf(program, length), maxDepth);
+    }
+
+    private enum Operator {
+        ADD(CompiledExpression.ADD),
+        SUB(CompiledExpression.SUB);
+
+        private final int opcode;
+
+        Operator(int opcode) {
+
+            this.opcode = opcode;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Simplifies an expression tree bottom-up:
+// - constant subtrees are folded into a single number, with the same int overflow as interpret();
+// - x + 0, 0 + x and x - 0 become x, and x - x becomes 0;
+// - structurally equal subtrees are shared, turning the tree into a DAG.
+// Leaves it does not know are kept as they are and never folded.
+public class ExpressionOptimizer {
+    private final Map<NodeKey, Expression> canonical = new HashMap<>();
+    private final Map<Expression, Expression> optimized = new IdentityHashMap<>();
+
+    private ExpressionOptimizer() {
+    }
+
+    public static Expression optimize(Expression expression) {
+
+        return new ExpressionOptimizer().run(expression);
+    }
+
+    private Expression run(Expression root) {
+
+        ArrayDeque<Expression> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Expression node = pending.peek();
+            if (this.optimized.containsKey(node)) {
+                pending.pop();
+                continue;
+            }
+            Expression left = leftOf(node);
+            Expression right = rightOf(node);
+            if (left != null && !this.optimized.containsKey(left)) {
+                pending.push(left);
+                continue;
+            }
+            if (right != null && !this.optimized.containsKey(right)) {
+                pending.push(right);
+                continue;
+            }
+            pending.pop();
+            this.optimized.put(node, left == null ? intern(node) : simplify(node, this.optimized.get(left),
+                    this.optimized.get(right)));
+        }
+        return this.optimized.get(root);
+    }
+
+    private Expression simplify(Expression node, Expression left, Expression right) {
+
+        boolean plus = node instanceof PlusExpression;
+        if (left instanceof NumberExpression l && right instanceof NumberExpression r) {
+            return number(plus ? l.getNumber() + r.getNumber() : l.getNumber() - r.getNumber());
+        }
+        if (isZero(right)) {
+            return left;
+        }
+        if (plus && isZero(left)) {
+            return right;
+        }
+        if (!plus && left == right) {
+            return number(0);
+        }
+        NodeKey key = new NodeKey(plus ? '+' : '-', left, right);
+        Expression existing = this.canonical.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        Expression rebuilt = plus ? new PlusExpression(left, right) : new MinusExpression(left, right);
+        this.canonical.put(key, rebuilt);
+        return rebuilt;
+    }
+
+    private Expression intern(Expression leaf) {
+
+        if (leaf instanceof NumberExpression number) {
+            return number(number.getNumber());
+        }
+        if (leaf instanceof VariableExpression variable) {
+            return this.canonical.computeIfAbsent(new NodeKey('v', variable.getColumn(), null), key -> leaf);
+        }
+        return this.canonical.computeIfAbsent(new NodeKey('?', leaf, null), key -> leaf);
+    }
+
+    private Expression number(int value) {
+
+        return this.canonical.computeIfAbsent(new NodeKey('n', value, null), key -> new NumberExpression(value));
+    }
+
+    private static boolean isZero(Expression expression) {
+
+        return expression instanceof NumberExpression number && number.getNumber() == 0;
+    }
+
+    private static Expression leftOf(Expression node) {
+
+        if (node instanceof PlusExpression plus) {
+            return plus.getLeftExpression();
+        }
+        if (node instanceof MinusExpression minus) {
+            return minus.getLeftExpression();
+        }
+        return null;
+    }
+
+    private static Expression rightOf(Expression node) {
+
+        if (node instanceof PlusExpression plus) {
+            return plus.getRightExpression();
+        }
+        if (node instanceof MinusExpression minus) {
+            return minus.getRightExpression();
+        }
+        return null;
+    }
+
+    // Children are already canonical, so comparing them by identity compares whole subtrees.
+    private record NodeKey(char operator, Object left, Object right) {
+    }
+}
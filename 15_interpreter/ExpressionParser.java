@@ -0,0 +1,112 @@
+import java.util.ArrayDeque;
+import java.util.List;
+
+// Parses infix expressions such as "10 + 5 - 3", "-(2 - 7) + 4" or "price - discount + 1" into
+// Expression trees. Uses the shunting-yard algorithm, so deeply nested input does not recurse.
+public class ExpressionParser {
+    private static final char UNARY_MINUS = 'u';
+    private static final char OPEN = '(';
+
+    private ExpressionParser() {
+    }
+
+    public static Expression parse(String source) {
+
+        return parse(source, List.of());
+    }
+
+    // Each identifier becomes a VariableExpression reading the column at its index in variables.
+    public static Expression parse(String source, List<String> variables) {
+
+        ArrayDeque<Expression> operands = new ArrayDeque<>();
+        ArrayDeque<Character> operators = new ArrayDeque<>();
+        boolean expectOperand = true;
+        for (ExpressionTokenizer.Token token : ExpressionTokenizer.tokenize(source)) {
+            switch (token.type()) {
+                case NUMBER:
+                    requireOperandPosition(expectOperand, token);
+                    operands.push(new NumberExpression(token.value()));
+                    expectOperand = false;
+                    break;
+                case IDENTIFIER:
+                    requireOperandPosition(expectOperand, token);
+                    int column = variables.indexOf(token.name());
+                    if (column < 0) {
+                        throw new IllegalArgumentException("Unknown variable '" + token.name() + "' at position "
+                                + token.position());
+                    }
+                    operands.push(new VariableExpression(token.name(), column));
+                    expectOperand = false;
+                    break;
+                case LEFT_PAREN:
+                    requireOperandPosition(expectOperand, token);
+                    operators.push(OPEN);
+                    break;
+                case RIGHT_PAREN:
+                    requireOperatorPosition(expectOperand, token);
+                    while (!operators.isEmpty() && operators.peek() != OPEN) {
+                        apply(operators.pop(), operands);
+                    }
+                    if (operators.isEmpty()) {
+                        throw new IllegalArgumentException("Unbalanced ')' at position " + token.position());
+                    }
+                    operators.pop();
+                    break;
+                case PLUS:
+                case MINUS:
+                    if (expectOperand) {
+                        if (token.type() == ExpressionTokenizer.Type.PLUS) {
+                            throw new IllegalArgumentException("Expected an operand at position " + token.position());
+                        }
+                        operators.push(UNARY_MINUS);
+                        break;
+                    }
+                    // Binary operators are left-associative and bind looser than unary minus.
+                    while (!operators.isEmpty() && operators.peek() != OPEN) {
+                        apply(operators.pop(), operands);
+                    }
+                    operators.push(token.type() == ExpressionTokenizer.Type.PLUS ? '+' : '-');
+                    expectOperand = true;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown token " + token);
+            }
+        }
+        if (expectOperand) {
+            throw new IllegalArgumentException("Expression ends where an operand is expected: \"" + source + "\"");
+        }
+        while (!operators.isEmpty()) {
+            char operator = operators.pop();
+            if (operator == OPEN) {
+                throw new IllegalArgumentException("Unbalanced '(' in \"" + source + "\"");
+            }
+            apply(operator, operands);
+        }
+        return operands.pop();
+    }
+
+    private static void apply(char operator, ArrayDeque<Expression> operands) {
+
+        Expression right = operands.pop();
+        if (operator == UNARY_MINUS) {
+            operands.push(new MinusExpression(new NumberExpression(0), right));
+            return;
+        }
+        Expression left = operands.pop();
+        operands.push(operator == '+' ? new PlusExpression(left, right) : new MinusExpression(left, right));
+    }
+
+    private static void requireOperandPosition(boolean expectOperand, ExpressionTokenizer.Token token) {
+
+        if (!expectOperand) {
+            throw new IllegalArgumentException("Expected an operator at position " + token.position());
+        }
+    }
+
+    private static void requireOperatorPosition(boolean expectOperand, ExpressionTokenizer.Token token) {
+
+        if (expectOperand) {
+            throw new IllegalArgumentException("Expected an operand at position " + token.position());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.ArrayList;
+import java.util.List;
+
+public class ExpressionTokenizer {
+
+    public enum Type {
+        NUMBER,
+        PLUS,
+        MINUS,
+        LEFT_PAREN,
+        RIGHT_PAREN,
+        IDENTIFIER
+    }
+
+    // value holds the number for NUMBER tokens; name holds the identifier for IDENTIFIER tokens.
+    public record Token(Type type, int value, String name, int position) {
+    }
+
+    private ExpressionTokenizer() {
+    }
+
+    public static List<Token> tokenize(String source) {
+
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c >= '0' && c <= '9') {
+                int start = i;
+                long value = 0;
+                while (i < source.length() && source.charAt(i) >= '0' && source.charAt(i) <= '9') {
+                    value = value * 10 + (source.charAt(i) - '0');
+                    if (value > Integer.MAX_VALUE) {
+                        throw new IllegalArgumentException("Number too large at position " + start);
+                    }
+                    i++;
+                }
+                tokens.add(new Token(Type.NUMBER, (int) value, null, start));
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < source.length() && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(Type.IDENTIFIER, 0, source.substring(start, i), start));
+            } else {
+                tokens.add(new Token(symbol(c, i), 0, null, i));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static Type symbol(char c, int position) {
+
+        switch (c) {
+            case '+':
+                return Type.PLUS;
+            case '-':
+                return Type.MINUS;
+            case '(':
+                return Type.LEFT_PAREN;
+            case ')':
+                return Type.RIGHT_PAREN;
+            default:
+                throw new IllegalArgumentException("Unexpected character '" + c + "' at position " + position);
+        }
+    }
+}
@@ -1,3 +1,6 @@
+import java.util.Arrays;
+import java.util.List;
+
 public class InterpreterClient {
 
     public static void main(String[] args) {
@@ -11,5 +14,30 @@ public class InterpreterClient {
         );
         int result = expression.interpret();
         System.out.println("The result of '10 + 5 - 3' is: " + result);
+
+        CompiledExpression compiled = ExpressionCompiler.compile(expression);
+        System.out.println("Compiled to a flat program: " + compiled.interpret());
+        System.out.println("Compiled to bytecode: " + ExpressionClassGenerator.generate(compiled).interpret());
+
+        ExpressionCache cache = new ExpressionCache(1024);
+        for (String source : new String[]{"10 + 5 - 3", "-(2 - 7) + 4", "10 + 5 - 3"}) {
+            System.out.println("Parsed '" + source + "': " + cache.get(source).interpret());
+        }
+        System.out.println("Cache hits: " + cache.getHits() + ", misses: " + cache.getMisses());
+
+        int[][] columns = {{100, 250, 80}, {10, 0, 5}};
+        int[] totals = new int[3];
+        cache.get("price - discount + 1", List.of("price", "discount")).interpretBatch(columns, totals);
+        System.out.println("'price - discount + 1' per row: " + Arrays.toString(totals));
+
+        Expression generated = ExpressionClassGenerator.generate(
+                ExpressionCompiler.compile(cache.get("price - discount + 1", List.of("price", "discount"))));
+        System.out.println("Generated, row {250, 0}: " + generated.interpret(new int[]{250, 0}));
+        int[] generatedTotals = new int[3];
+        generated.interpretBatch(columns, generatedTotals);
+        if (!Arrays.equals(totals, generatedTotals)) {
+            throw new IllegalStateException("Generated batch disagrees: " + Arrays.toString(generatedTotals));
+        }
+        System.out.println("Generated, per row: " + Arrays.toString(generatedTotals));
     }
 }
@@ -13,4 +13,20 @@ public class MinusExpression implements Expression {
 
         return this.leftExpression.interpret() - this.rightExpression.interpret();
     }
+
+    @Override
+    public int interpret(int[] row) {
+
+        return this.leftExpression.interpret(row) - this.rightExpression.interpret(row);
+    }
+
+    public Expression getLeftExpression() {
+
+        return this.leftExpression;
+    }
+
+    public Expression getRightExpression() {
+
+        return this.rightExpression;
+    }
 }
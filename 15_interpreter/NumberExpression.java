@@ -11,4 +11,9 @@ public class NumberExpression implements Expression {
 
         return this.number;
     }
+
+    public int getNumber() {
+
+        return this.number;
+    }
 }
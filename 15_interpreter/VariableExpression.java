@@ -0,0 +1,34 @@
+public class VariableExpression implements Expression {
+    private final String name;
+    private final int column;
+
+    public VariableExpression(String name, int column) {
+
+        this.name = name;
+        this.column = column;
+    }
+
+    // A variable only has values row by row, so it can only be evaluated with a row or a batch.
+    @Override
+    public int interpret() {
+
+        throw new UnsupportedOperationException("Variable " + this.name
+                + " has no single value; use interpret(row) or interpretBatch");
+    }
+
+    @Override
+    public int interpret(int[] row) {
+
+        return row[this.column];
+    }
+
+    public String getName() {
+
+        return this.name;
+    }
+
+    public int getColumn() {
+
+        return this.column;
+    }
+}
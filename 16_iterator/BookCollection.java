@@ -1,19 +1,89 @@
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class BookCollection implements Iterable<Book> {
+    private static final int DEFAULT_CAPACITY = 16;
+    // Some VMs reserve header words in arrays, so stay a little below Integer.MAX_VALUE.
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    // Built by the first title lookup and kept current by addBook from then on, so a collection
+    // that is never searched by title does not hold a second copy of every title.
+    private TitleIndex titleIndex;
     private Book[] books;
     private int size = 0;
 
+    public BookCollection() {
+
+        this(DEFAULT_CAPACITY);
+    }
+
+    // capacity is only the initial size of the storage; the collection grows as books are added.
     public BookCollection(int capacity) {
 
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        }
         this.books = new Book[capacity];
     }
 
     public void addBook(Book book) {
 
-        if (this.size < this.books.length) {
-            this.books[this.size++] = book;
+        if (book == null) {
+            throw new IllegalArgumentException("book must not be null");
+        }
+        if (book.getTitle() == null) {
+            throw new IllegalArgumentException("book title must not be null");
+        }
+        if (this.size == this.books.length) {
+            grow();
+        }
+        if (this.titleIndex != null) {
+            this.titleIndex.add(book.getTitle());
+        }
+        this.books[this.size++] = book;
+    }
+
+    public int size() {
+
+        return this.size;
+    }
+
+    public Book getBook(int index) {
+
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + this.size);
+        }
+        return this.books[index];
+    }
+
+    // Books with exactly this title, in the order they were added.
+    public List<Book> findByTitle(String title) {
+
+        return booksAt(getTitleIndex().findExact(title));
+    }
+
+    // At most limit books whose title starts with prefix, in title order.
+    public List<Book> findByTitlePrefix(String prefix, int limit) {
+
+        return booksAt(getTitleIndex().findPrefix(prefix, limit));
+    }
+
+    public TitleIndex getTitleIndex() {
+
+        if (this.titleIndex == null) {
+            TitleIndex index = new TitleIndex();
+            for (int i = 0; i < this.size; i++) {
+                index.add(this.books[i].getTitle());
+            }
+            this.titleIndex = index;
         }
+        return this.titleIndex;
     }
 
     @Override
@@ -22,19 +92,121 @@ public class BookCollection implements Iterable<Book> {
         return new BookIterator();
     }
 
+    @Override
+    public Spliterator<Book> spliterator() {
+
+        return new BookSpliterator(this.books, 0, this.size);
+    }
+
+    public Stream<Book> stream() {
+
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<Book> parallelStream() {
+
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    // Index ids are book positions, since both are assigned in order of addBook.
+    private List<Book> booksAt(int[] ids) {
+
+        Book[] found = new Book[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            found[i] = this.books[ids[i]];
+        }
+        return List.of(found);
+    }
+
+    // Grows by half, so n additions cost O(n) copying in total.
+    private void grow() {
+
+        int capacity = this.books.length;
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("BookCollection is full");
+        }
+        // Compared before adding, since capacity + capacity / 2 can overflow an int.
+        int newCapacity = capacity > MAX_CAPACITY - (capacity >> 1)
+                ? MAX_CAPACITY : Math.max(DEFAULT_CAPACITY, capacity + (capacity >> 1));
+        this.books = Arrays.copyOf(this.books, newCapacity);
+    }
+
     private class BookIterator implements Iterator<Book> {
         private int currentIndex = 0;
 
         @Override
         public boolean hasNext() {
 
-            return this.currentIndex < size && books[this.currentIndex] != null;
+            return this.currentIndex < size;
         }
 
         @Override
         public Book next() {
 
+            if (this.currentIndex >= size) {
+                throw new NoSuchElementException();
+            }
             return books[this.currentIndex++];
         }
     }
+
+    // Covers books[from, to) of the array captured when it was created. Splitting halves the
+    // range, so every part knows its exact size and parallel streams divide the work evenly.
+    private static class BookSpliterator implements Spliterator<Book> {
+        private final Book[] books;
+        private int from;
+        private final int to;
+
+        BookSpliterator(Book[] books, int from, int to) {
+
+            this.books = books;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Book> action) {
+
+            if (this.from >= this.to) {
+                return false;
+            }
+            action.accept(this.books[this.from++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Book> action) {
+
+            Book[] books = this.books;
+            int to = this.to;
+            for (int i = this.from; i < to; i++) {
+                action.accept(books[i]);
+            }
+            this.from = to;
+        }
+
+        @Override
+        public Spliterator<Book> trySplit() {
+
+            int middle = (this.from + this.to) >>> 1;
+            if (middle <= this.from) {
+                return null;
+            }
+            BookSpliterator prefix = new BookSpliterator(this.books, this.from, middle);
+            this.from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+
+            return this.to - this.from;
+        }
+
+        @Override
+        public int characteristics() {
+
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+    }
 }
@@ -0,0 +1,43 @@
+public class BookScanBenchmark {
+    private static final int RUNS = 5;
+    // Keeps the results observable so the JIT cannot drop the scans.
+    private static volatile long sink;
+
+    // The default of 20M books needs about 1 GB of heap; pass a larger count (e.g. 100000000)
+    // together with a matching -Xmx.
+    public static void main(String[] args) {
+
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        String[] titles = {"The Hobbit", "1984", "Dune", "Emma", "Beloved", "Ulysses", "Middlemarch"};
+        BookCollection books = new BookCollection();
+        for (int i = 0; i < count; i++) {
+            books.addBook(new Book(titles[i % titles.length]));
+        }
+
+        System.out.printf("%,d books, %d cores%n", books.size(), Runtime.getRuntime().availableProcessors());
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            long sequential = 0;
+            for (Book book : books) {
+                sequential += book.getTitle().length();
+            }
+            long iteratorNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long stream = books.stream().mapToLong(book -> book.getTitle().length()).sum();
+            long streamNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long parallel = books.parallelStream().mapToLong(book -> book.getTitle().length()).sum();
+            long parallelNanos = System.nanoTime() - start;
+
+            if (sequential != stream || sequential != parallel) {
+                throw new IllegalStateException("Scans disagree: " + sequential + ", " + stream + ", " + parallel);
+            }
+            sink = parallel;
+            System.out.printf("run %d: iterator %d ms, stream %d ms, parallel stream %d ms (%.1fx)%n", run,
+                    iteratorNanos / 1_000_000, streamNanos / 1_000_000, parallelNanos / 1_000_000,
+                    (double) streamNanos / parallelNanos);
+        }
+    }
+}
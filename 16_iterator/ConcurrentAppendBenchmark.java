@@ -0,0 +1,65 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+// Compares appends from several threads to the lock-free collection and to a growable array
+// guarded by a lock. The locked baseline is an ArrayList rather than BookCollection, whose
+// addBook also maintains the title index.
+public class ConcurrentAppendBenchmark {
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws InterruptedException {
+
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        Book[] shelf = new Book[1024];
+        for (int i = 0; i < shelf.length; i++) {
+            shelf[i] = new Book("Book " + i);
+        }
+        System.out.printf("%,d appends per run, %d cores%n", books, Runtime.getRuntime().availableProcessors());
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            for (int run = 0; run < RUNS; run++) {
+                ConcurrentBookCollection lockFree = new ConcurrentBookCollection();
+                double lockFreeRate = appendsPerSecond(threads, books, shelf, lockFree::addBook);
+                List<Book> locked = new ArrayList<>();
+                double lockedRate = appendsPerSecond(threads, books, shelf, book -> {
+                    synchronized (locked) {
+                        locked.add(book);
+                    }
+                });
+                if (lockFree.size() != books || locked.size() != books) {
+                    throw new IllegalStateException("Lost appends: " + lockFree.size() + ", " + locked.size());
+                }
+                System.out.printf("%d threads, run %d: lock-free %.1f M/s, synchronized %.1f M/s%n", threads, run,
+                        lockFreeRate / 1e6, lockedRate / 1e6);
+            }
+        }
+    }
+
+    private static double appendsPerSecond(int threads, int books, Book[] shelf, Consumer<Book> add)
+            throws InterruptedException {
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int from = (int) ((long) books * t / threads);
+            int to = (int) ((long) books * (t + 1) / threads);
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = from; i < to; i++) {
+                    add.accept(shelf[i & (shelf.length - 1)]);
+                }
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return books / ((System.nanoTime() - begin) / 1e9);
+    }
+}
@@ -0,0 +1,136 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Append-only BookCollection that many threads can add to and iterate at the same time, without
+// locks.
+//
+// Books live in chunks that double in size, so the storage grows without copying. A writer claims
+// a slot with one atomic increment and fills it. The published size then moves past every slot
+// that is filled, and whichever writer fills the last gap moves it. Iterators read up to the
+// published size seen when they were created, so each one is a consistent snapshot: a prefix of
+// the books in slot order, with no nulls. Books added later are not seen.
+public class ConcurrentBookCollection implements Iterable<Book> {
+    private static final int FIRST_CHUNK_BITS = 4;
+    private static final int MAX_CHUNKS = Integer.SIZE - FIRST_CHUNK_BITS;
+    private static final int MAX_SIZE = Integer.MAX_VALUE - (1 << FIRST_CHUNK_BITS);
+    private static final VarHandle CHUNKS = MethodHandles.arrayElementVarHandle(Book[][].class);
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Book[].class);
+
+    private final Book[][] chunks = new Book[MAX_CHUNKS][];
+    private final AtomicInteger claimed = new AtomicInteger();
+    private final AtomicInteger published = new AtomicInteger();
+
+    public void addBook(Book book) {
+
+        if (book == null) {
+            throw new IllegalArgumentException("book must not be null");
+        }
+        int slot = this.claimed.getAndIncrement();
+        if (slot < 0 || slot >= MAX_SIZE) {
+            throw new IllegalStateException("ConcurrentBookCollection is full");
+        }
+        int position = slot + (1 << FIRST_CHUNK_BITS);
+        int chunk = chunkOf(position);
+        SLOTS.setVolatile(chunk(chunk), position - (1 << (chunk + FIRST_CHUNK_BITS)), book);
+        publish();
+    }
+
+    // Number of books visible to new iterators.
+    public int size() {
+
+        return this.published.get();
+    }
+
+    public Book getBook(int index) {
+
+        if (index < 0 || index >= this.published.get()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        return bookAt(index);
+    }
+
+    @Override
+    public Iterator<Book> iterator() {
+
+        return new SnapshotIterator(this.published.get());
+    }
+
+    // Moves the published size over filled slots. Slot reads and writes are volatile, so of two
+    // writers racing here at least one sees the other's book, and no filled slot is left behind.
+    private void publish() {
+
+        int size = this.published.get();
+        while (size < this.claimed.get() && size < MAX_SIZE) {
+            int position = size + (1 << FIRST_CHUNK_BITS);
+            int chunk = chunkOf(position);
+            Book[] books = (Book[]) CHUNKS.getVolatile(this.chunks, chunk);
+            if (books == null || SLOTS.getVolatile(books, position - (1 << (chunk + FIRST_CHUNK_BITS))) == null) {
+                return;
+            }
+            this.published.compareAndSet(size, size + 1);
+            size = this.published.get();
+        }
+    }
+
+    private Book[] chunk(int chunk) {
+
+        Book[] books = (Book[]) CHUNKS.getVolatile(this.chunks, chunk);
+        if (books == null) {
+            Book[] allocated = new Book[1 << (chunk + FIRST_CHUNK_BITS)];
+            Book[] winner = (Book[]) CHUNKS.compareAndExchange(this.chunks, chunk, null, allocated);
+            books = winner == null ? allocated : winner;
+        }
+        return books;
+    }
+
+    // Only called below the published size, whose volatile read orders these plain reads after
+    // the writes of the chunk and the slot.
+    private Book bookAt(int index) {
+
+        int position = index + (1 << FIRST_CHUNK_BITS);
+        int chunk = chunkOf(position);
+        return this.chunks[chunk][position - (1 << (chunk + FIRST_CHUNK_BITS))];
+    }
+
+    // Chunk k holds positions 2^(k + FIRST_CHUNK_BITS) up to twice that.
+    private static int chunkOf(int position) {
+
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(position) - FIRST_CHUNK_BITS;
+    }
+
+    private class SnapshotIterator implements Iterator<Book> {
+        private final int snapshotSize;
+        private int currentIndex = 0;
+        private Book[] chunk;
+        private int chunkIndex = -1;
+        private int offset;
+
+        SnapshotIterator(int snapshotSize) {
+
+            this.snapshotSize = snapshotSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            return this.currentIndex < this.snapshotSize;
+        }
+
+        @Override
+        public Book next() {
+
+            if (this.currentIndex >= this.snapshotSize) {
+                throw new NoSuchElementException();
+            }
+            if (this.chunk == null || this.offset == this.chunk.length) {
+                this.chunk = chunks[++this.chunkIndex];
+                this.offset = 0;
+            }
+            this.currentIndex++;
+            return this.chunk[this.offset++];
+        }
+    }
+}
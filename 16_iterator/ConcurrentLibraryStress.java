@@ -0,0 +1,117 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Writers add numbered books while readers iterate and check that every snapshot is consistent.
+// Exits with status 1 on the first violation.
+public class ConcurrentLibraryStress {
+
+    public static void main(String[] args) throws InterruptedException {
+
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int booksPerWriter = args.length > 2 ? Integer.parseInt(args[2]) : 500_000;
+        ConcurrentBookCollection books = new ConcurrentBookCollection();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong snapshots = new AtomicLong();
+        List<String> failures = new ArrayList<>();
+
+        List<Thread> writerThreads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            writerThreads.add(Thread.ofPlatform().name("writer-" + w).start(() -> {
+                await(start);
+                for (int i = 0; i < booksPerWriter; i++) {
+                    books.addBook(new Book(writer + ":" + i));
+                }
+            }));
+        }
+        List<Thread> readerThreads = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            readerThreads.add(Thread.ofPlatform().name("reader-" + r).start(() -> {
+                await(start);
+                int lastSize = 0;
+                while (writing.get()) {
+                    String failure = checkSnapshot(books, writers, lastSize);
+                    if (failure != null) {
+                        synchronized (failures) {
+                            failures.add(Thread.currentThread().getName() + ": " + failure);
+                        }
+                        return;
+                    }
+                    lastSize = books.size();
+                    snapshots.incrementAndGet();
+                }
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : writerThreads) {
+            thread.join();
+        }
+        writing.set(false);
+        for (Thread thread : readerThreads) {
+            thread.join();
+        }
+        long millis = (System.nanoTime() - begin) / 1_000_000;
+
+        long expected = (long) writers * booksPerWriter;
+        if (books.size() != expected) {
+            failures.add("final size " + books.size() + ", expected " + expected);
+        }
+        String failure = checkSnapshot(books, writers, 0);
+        if (failure != null) {
+            failures.add("final snapshot: " + failure);
+        }
+        System.out.printf("%d writers, %d readers: %,d books in %d ms, %,d snapshots checked%n", writers, readers,
+                books.size(), millis, snapshots.get());
+        if (!failures.isEmpty()) {
+            failures.forEach(System.out::println);
+            System.exit(1);
+        }
+        System.out.println("All snapshots consistent");
+    }
+
+    // A snapshot is a prefix of the slots, and each writer claims slots in order, so every writer's
+    // books must appear as 0, 1, 2, ... with no gaps, duplicates or nulls.
+    private static String checkSnapshot(ConcurrentBookCollection books, int writers, int minimumSize) {
+
+        int[] next = new int[writers];
+        int count = 0;
+        for (Book book : books) {
+            if (book == null) {
+                return "null book at " + count;
+            }
+            String title = book.getTitle();
+            int separator = title.indexOf(':');
+            int writer = Integer.parseInt(title, 0, separator, 10);
+            int sequence = Integer.parseInt(title, separator + 1, title.length(), 10);
+            if (sequence != next[writer]) {
+                return "writer " + writer + " book " + sequence + " where " + next[writer] + " was expected";
+            }
+            next[writer]++;
+            count++;
+        }
+        if (count < minimumSize) {
+            return "snapshot of " + count + " books after one of " + minimumSize;
+        }
+        if (Arrays.stream(next).sum() != count) {
+            return "counted " + count + " books but writers account for " + Arrays.stream(next).sum();
+        }
+        return null;
+    }
+
+    private static void await(CountDownLatch latch) {
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
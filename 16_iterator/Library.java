@@ -2,7 +2,7 @@ public class Library {
 
     public static void main(String[] args) {
 
-        BookCollection myBooks = new BookCollection(5);
+        BookCollection myBooks = new BookCollection(2);
         myBooks.addBook(new Book("The Hobbit"));
         myBooks.addBook(new Book("1984"));
         myBooks.addBook(new Book("Dune"));
@@ -12,5 +12,14 @@ public class Library {
         for (Book book : myBooks) {
             System.out.println(book.getTitle());
         }
+
+        System.out.println("Titles longer than four letters: "
+                + myBooks.stream().filter(book -> book.getTitle().length() > 4).count());
+
+        myBooks.addBook(new Book("Dune Messiah"));
+        System.out.println("Books titled 'Dune': " + myBooks.findByTitle("Dune").size());
+        for (Book book : myBooks.findByTitlePrefix("Dun", 10)) {
+            System.out.println("Starts with 'Dun': " + book.getTitle());
+        }
     }
 }
@@ -0,0 +1,477 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Secondary index over book titles, addressed by the order in which titles were added.
+//
+// Titles are stored back to back as UTF-8 in a pool of byte chunks, and each entry is one long
+// locating its bytes, so an entry costs its bytes plus a few ints instead of a String and its
+// backing array. A title never straddles two chunks, and chunks are addressed by index, so the
+// pool is not limited to 2 GB.
+// - Exact lookups go through an open-addressing hash table with one slot per distinct title;
+//   entries sharing a title are chained from it, so copies of one book do not lengthen probes.
+// - Prefix lookups binary-search ids sorted by title bytes. UTF-8 byte order matches code point
+//   order, so a String prefix is a byte prefix. Entries added since the last prefix lookup are
+//   sorted into a small side array that is searched alongside the main one, and only folded into
+//   the main array once it outgrows sideLimit(), so interleaving adds and lookups does not copy
+//   the whole index every time.
+public class TitleIndex {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_ENTRIES = Integer.MAX_VALUE - 8;
+    // An entry is the chunk index in the top 24 bits, then the offset in the chunk and the length,
+    // CHUNK_BITS each.
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int FIELD_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CHUNKS = 1 << 24;
+    private static final int MIN_SIDE_LIMIT = 4096;
+    private static final int[] NO_IDS = new int[0];
+    private static final int INSERTION_SORT_THRESHOLD = 12;
+    private static final int KEY_BYTES = 7;
+
+    private byte[][] chunks = {new byte[DEFAULT_CAPACITY * 16]};
+    private int chunkCount = 1;
+    // Bytes used in the last chunk.
+    private int lastChunkUsed = 0;
+    private long poolBytes = 0;
+    private long[] entries = new long[DEFAULT_CAPACITY];
+    // Id + 1 of the previous entry with the same title, or 0 for the first one.
+    private int[] previousSameTitle = new int[DEFAULT_CAPACITY];
+    private int size = 0;
+    // Id + 1 of the latest entry of each distinct title, or 0 for an empty slot; kept at most
+    // three quarters full.
+    private int[] slots = new int[DEFAULT_CAPACITY * 2];
+    private int distinctTitles = 0;
+    // Ids 0 .. sortedCount-1 in title order.
+    private int[] sorted = NO_IDS;
+    private int sortedCount = 0;
+    // The next sideCount ids in title order.
+    private int[] side = NO_IDS;
+    private int sideCount = 0;
+
+    // Returns the id of the new entry; ids are assigned 0, 1, 2, ... in order.
+    public int add(String title) {
+
+        if (title == null) {
+            throw new IllegalArgumentException("title must not be null");
+        }
+        byte[] bytes = title.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= CHUNK_SIZE) {
+            throw new IllegalArgumentException("Title longer than " + (CHUNK_SIZE - 1) + " bytes");
+        }
+        if (this.size == MAX_ENTRIES) {
+            throw new IllegalStateException("TitleIndex is full");
+        }
+        byte[] chunk = this.chunks[this.chunkCount - 1];
+        if (this.lastChunkUsed + bytes.length > chunk.length) {
+            if (this.lastChunkUsed + bytes.length <= CHUNK_SIZE) {
+                chunk = Arrays.copyOf(chunk, Math.min(CHUNK_SIZE,
+                        Math.max(this.lastChunkUsed + bytes.length, chunk.length + (chunk.length >> 1))));
+            } else {
+                if (this.chunkCount == MAX_CHUNKS) {
+                    throw new IllegalStateException("Title pool is full");
+                }
+                if (this.chunkCount == this.chunks.length) {
+                    this.chunks = Arrays.copyOf(this.chunks, this.chunkCount * 2);
+                }
+                chunk = new byte[CHUNK_SIZE];
+                this.chunkCount++;
+                this.lastChunkUsed = 0;
+            }
+            this.chunks[this.chunkCount - 1] = chunk;
+        }
+        if (this.size == this.entries.length) {
+            int grown = (int) Math.min(MAX_ENTRIES, this.size + ((long) this.size >> 1));
+            this.entries = Arrays.copyOf(this.entries, grown);
+            this.previousSameTitle = Arrays.copyOf(this.previousSameTitle, grown);
+        }
+        int from = this.lastChunkUsed;
+        System.arraycopy(bytes, 0, chunk, from, bytes.length);
+        this.lastChunkUsed += bytes.length;
+        this.poolBytes += bytes.length;
+        int id = this.size++;
+        this.entries[id] = (long) (this.chunkCount - 1) << (2 * CHUNK_BITS) | (long) from << CHUNK_BITS | bytes.length;
+
+        int mask = this.slots.length - 1;
+        int slot = hash(chunk, from, this.lastChunkUsed) & mask;
+        while (this.slots[slot] != 0) {
+            int latest = this.slots[slot] - 1;
+            if (titleEquals(latest, chunk, from, this.lastChunkUsed)) {
+                this.previousSameTitle[id] = latest + 1;
+                this.slots[slot] = id + 1;
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        this.slots[slot] = id + 1;
+        if (++this.distinctTitles * 4L > this.slots.length * 3L) {
+            rehash(this.slots.length * 2);
+        }
+        return id;
+    }
+
+    public int size() {
+
+        return this.size;
+    }
+
+    public String titleAt(int id) {
+
+        if (id < 0 || id >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + id + " out of bounds for size " + this.size);
+        }
+        long entry = this.entries[id];
+        return new String(chunkOf(entry), offsetOf(entry), lengthOf(entry), StandardCharsets.UTF_8);
+    }
+
+    // Ids of every entry with exactly this title, in ascending order.
+    public int[] findExact(String title) {
+
+        byte[] key = title.getBytes(StandardCharsets.UTF_8);
+        int mask = this.slots.length - 1;
+        for (int slot = hash(key, 0, key.length) & mask; this.slots[slot] != 0; slot = (slot + 1) & mask) {
+            int latest = this.slots[slot] - 1;
+            if (titleEquals(latest, key, 0, key.length)) {
+                int count = 0;
+                for (int id = latest + 1; id != 0; id = this.previousSameTitle[id - 1]) {
+                    count++;
+                }
+                int[] ids = new int[count];
+                for (int id = latest + 1; id != 0; id = this.previousSameTitle[id - 1]) {
+                    ids[--count] = id - 1;
+                }
+                return ids;
+            }
+        }
+        return NO_IDS;
+    }
+
+    // Ids of at most limit entries whose title starts with prefix, in title order.
+    public int[] findPrefix(String prefix, int limit) {
+
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        sortPending();
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        int main = lowerBound(this.sorted, this.sortedCount, key);
+        int recent = lowerBound(this.side, this.sideCount, key);
+        int[] found = new int[Math.min(limit, 16)];
+        int count = 0;
+        while (count < limit) {
+            boolean inMain = main < this.sortedCount && startsWith(this.sorted[main], key);
+            boolean inSide = recent < this.sideCount && startsWith(this.side[recent], key);
+            if (!inMain && !inSide) {
+                break;
+            }
+            if (count == found.length) {
+                found = Arrays.copyOf(found, (int) Math.min(limit, count * 2L));
+            }
+            if (inMain && (!inSide || compare(this.sorted[main], this.side[recent]) < 0)) {
+                found[count++] = this.sorted[main++];
+            } else {
+                found[count++] = this.side[recent++];
+            }
+        }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
+    // Heap held by the index arrays, including unused capacity.
+    public long estimatedBytes() {
+
+        long bytes = arrayBytes(this.chunks.length, Long.BYTES);
+        for (int i = 0; i < this.chunkCount; i++) {
+            bytes += arrayBytes(this.chunks[i].length, Byte.BYTES);
+        }
+        return bytes + arrayBytes(this.entries.length, Long.BYTES)
+                + arrayBytes(this.previousSameTitle.length, Integer.BYTES) + arrayBytes(this.slots.length, Integer.BYTES)
+                + arrayBytes(this.sorted.length, Integer.BYTES) + arrayBytes(this.side.length, Integer.BYTES);
+    }
+
+    public long getPoolBytes() {
+
+        return this.poolBytes;
+    }
+
+    private byte[] chunkOf(long entry) {
+
+        return this.chunks[(int) (entry >>> (2 * CHUNK_BITS))];
+    }
+
+    private static int offsetOf(long entry) {
+
+        return (int) (entry >>> CHUNK_BITS) & FIELD_MASK;
+    }
+
+    private static int lengthOf(long entry) {
+
+        return (int) entry & FIELD_MASK;
+    }
+
+    private boolean titleEquals(int id, byte[] key, int from, int to) {
+
+        long entry = this.entries[id];
+        int offset = offsetOf(entry);
+        return Arrays.equals(chunkOf(entry), offset, offset + lengthOf(entry), key, from, to);
+    }
+
+    private boolean startsWith(int id, byte[] key) {
+
+        long entry = this.entries[id];
+        int offset = offsetOf(entry);
+        return lengthOf(entry) >= key.length
+                && Arrays.equals(chunkOf(entry), offset, offset + key.length, key, 0, key.length);
+    }
+
+    // First position in ids[0..count) whose title is not below key.
+    private int lowerBound(int[] ids, int count, byte[] key) {
+
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long entry = this.entries[ids[middle]];
+            int offset = offsetOf(entry);
+            if (Arrays.compareUnsigned(chunkOf(entry), offset, offset + lengthOf(entry), key, 0, key.length) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Titles in the old table are distinct, so they are placed without comparing any bytes.
+    private void rehash(int capacity) {
+
+        int[] resized = new int[capacity];
+        int mask = capacity - 1;
+        for (int latest : this.slots) {
+            if (latest != 0) {
+                long entry = this.entries[latest - 1];
+                int offset = offsetOf(entry);
+                int slot = hash(chunkOf(entry), offset, offset + lengthOf(entry)) & mask;
+                while (resized[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                resized[slot] = latest;
+            }
+        }
+        this.slots = resized;
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        // Mix every bit into the low ones, since the table only uses those.
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    // Sorts the entries added since the last prefix lookup into the side array. Once the side
+    // array outgrows sideLimit() it is merged into the main one, so each lookup copies at most
+    // that many ids, and the main array is rewritten only every sideLimit() additions.
+    private void sortPending() {
+
+        int from = this.sortedCount + this.sideCount;
+        if (from == this.size) {
+            return;
+        }
+        this.side = ensureCapacity(this.side, this.size - this.sortedCount);
+        if (this.size - from <= INSERTION_SORT_THRESHOLD) {
+            // A few new ids: binary-search each one's place and shift the rest, which compares
+            // far fewer titles than a merge over the whole side array.
+            for (int id = from; id < this.size; id++) {
+                int low = 0;
+                int high = this.sideCount;
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (compare(this.side[middle], id) < 0) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                System.arraycopy(this.side, low, this.side, low + 1, this.sideCount - low);
+                this.side[low] = id;
+                this.sideCount++;
+            }
+        } else {
+            int[] pending = sortRange(from, this.size);
+            this.sideCount = mergeInto(this.side, this.sideCount, pending, pending.length);
+        }
+        if (this.sideCount <= sideLimit()) {
+            return;
+        }
+        if (this.sortedCount == 0) {
+            int[] empty = this.sorted;
+            this.sorted = this.side;
+            this.side = empty;
+        } else {
+            this.sorted = ensureCapacity(this.sorted, this.sortedCount + this.sideCount);
+            mergeInto(this.sorted, this.sortedCount, this.side, this.sideCount);
+        }
+        this.sortedCount += this.sideCount;
+        this.sideCount = 0;
+        if (this.side.length > 2 * sideLimit()) {
+            this.side = NO_IDS;
+        }
+    }
+
+    // About 16 times the square root of the size: folding the side array in costs O(size) once
+    // per sideLimit() additions, while each lookup after an add costs O(sideLimit()).
+    private int sideLimit() {
+
+        return Math.max(MIN_SIDE_LIMIT, (int) Math.sqrt(this.size) * 16);
+    }
+
+    private static int[] ensureCapacity(int[] ids, int capacity) {
+
+        if (ids.length >= capacity) {
+            return ids;
+        }
+        return Arrays.copyOf(ids, (int) Math.min(MAX_ENTRIES, Math.max(capacity, ids.length + ((long) ids.length >> 1))));
+    }
+
+    // Merges source[0..count) into target[0..targetCount), which has room for both. It works from
+    // the back, so no id is overwritten before it is read. Returns the merged count.
+    private int mergeInto(int[] target, int targetCount, int[] source, int count) {
+
+        int left = targetCount - 1;
+        int right = count - 1;
+        int out = targetCount + count - 1;
+        if ((long) count * Integer.SIZE < targetCount) {
+            // A much smaller source: binary-search where each id goes and move the target ids
+            // above it in one block, comparing O(count log targetCount) titles instead of all.
+            for (; right >= 0; right--) {
+                int low = 0;
+                int high = left + 1;
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (compare(target[middle], source[right]) > 0) {
+                        high = middle;
+                    } else {
+                        low = middle + 1;
+                    }
+                }
+                int moved = left + 1 - low;
+                System.arraycopy(target, low, target, out - moved + 1, moved);
+                out -= moved;
+                left = low - 1;
+                target[out--] = source[right];
+            }
+            return targetCount + count;
+        }
+        while (right >= 0) {
+            if (left >= 0 && compare(target[left], source[right]) > 0) {
+                target[out--] = target[left--];
+            } else {
+                target[out--] = source[right--];
+            }
+        }
+        return targetCount + count;
+    }
+
+    // Sorts ids from..to-1 by title, ties by id.
+    private int[] sortRange(int from, int to) {
+
+        int[] ids = new int[to - from];
+        for (int id = from; id < to; id++) {
+            ids[id - from] = id;
+        }
+        sortByKey(ids, new long[ids.length], 0, ids.length, 0);
+        return ids;
+    }
+
+    // Most-significant-digit sort that works on seven title bytes at a time: each pass loads the
+    // bytes at depth into keys once, then quicksorts the sequential key array, so the pool is not
+    // touched again for every comparison. All ids in from..to-1 share their first depth bytes.
+    private void sortByKey(int[] ids, long[] keys, int from, int to, int depth) {
+
+        for (int i = from; i < to; i++) {
+            keys[i] = keyAt(ids[i], depth);
+        }
+        quicksort(ids, keys, from, to, depth);
+    }
+
+    private void quicksort(int[] ids, long[] keys, int from, int to, int depth) {
+
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            long pivot = keys[(from + to) >>> 1];
+            int less = from;
+            int greater = to - 1;
+            int i = from;
+            while (i <= greater) {
+                int order = Long.compareUnsigned(keys[i], pivot);
+                if (order < 0) {
+                    swap(ids, keys, less++, i++);
+                } else if (order > 0) {
+                    swap(ids, keys, i, greater--);
+                } else {
+                    i++;
+                }
+            }
+            quicksort(ids, keys, from, less, depth);
+            if ((pivot & 0xFF) == KEY_BYTES + 1) {
+                sortByKey(ids, keys, less, greater + 1, depth + KEY_BYTES);
+            } else {
+                // Identical titles: order them by id.
+                Arrays.sort(ids, less, greater + 1);
+            }
+            from = greater + 1;
+        }
+        for (int i = from + 1; i < to; i++) {
+            int id = ids[i];
+            int j = i - 1;
+            while (j >= from && compare(ids[j], id) > 0) {
+                ids[j + 1] = ids[j];
+                j--;
+            }
+            ids[j + 1] = id;
+        }
+    }
+
+    // Title bytes depth..depth+6 big-endian and zero-padded, followed by the number of bytes that
+    // remain (capped at eight). Unsigned key order is title order over those bytes, with a title
+    // that ends first sorting first; equal keys ending in eight need the next seven bytes.
+    private long keyAt(int id, int depth) {
+
+        long entry = this.entries[id];
+        byte[] chunk = chunkOf(entry);
+        int position = offsetOf(entry) + depth;
+        int remaining = lengthOf(entry) - depth;
+        long key = 0;
+        for (int i = 0; i < KEY_BYTES; i++) {
+            key = key << 8 | (i < remaining ? chunk[position + i] & 0xFF : 0);
+        }
+        return key << 8 | Math.min(remaining, KEY_BYTES + 1);
+    }
+
+    private static void swap(int[] ids, long[] keys, int i, int j) {
+
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+    }
+
+    private int compare(int a, int b) {
+
+        long first = this.entries[a];
+        long second = this.entries[b];
+        int firstOffset = offsetOf(first);
+        int secondOffset = offsetOf(second);
+        int order = Arrays.compareUnsigned(chunkOf(first), firstOffset, firstOffset + lengthOf(first),
+                chunkOf(second), secondOffset, secondOffset + lengthOf(second));
+        return order != 0 ? order : Integer.compare(a, b);
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+
+        return 16 + (long) length * elementBytes;
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.Random;
+
+public class TitleIndexBenchmark {
+    private static final int LOOKUPS = 100_000;
+    private static final String[] WORDS = {"The", "Secret", "History", "of", "Dune", "Night", "River", "Garden",
+            "Lost", "Empire", "Silent", "Winter", "House", "Glass", "Iron", "Song", "Kingdom", "Shadow"};
+    // Keeps the results observable so the JIT cannot drop the loops.
+    private static volatile long sink;
+
+    // The default of 10M titles needs about 1 GB of heap; pass a larger count (e.g. 50000000)
+    // together with a matching -Xmx.
+    public static void main(String[] args) {
+
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        TitleIndex index = new TitleIndex();
+        Random random = new Random(5);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            index.add(title(i));
+        }
+        long addNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        index.findPrefix("", 0);
+        long sortNanos = System.nanoTime() - start;
+        System.out.printf("%,d titles: added in %d ms, sorted for prefix search in %d ms%n", count,
+                addNanos / 1_000_000, sortNanos / 1_000_000);
+        System.out.printf("index memory: %.1f bytes per entry, of which %.1f title bytes%n",
+                (double) index.estimatedBytes() / count, (double) index.getPoolBytes() / count);
+
+        long found = 0;
+        for (int run = 0; run < 3; run++) {
+            start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                int id = random.nextInt(count);
+                found += index.findExact(title(id)).length;
+            }
+            long exactNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                found += index.findPrefix(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)],
+                        10).length;
+            }
+            long prefixNanos = System.nanoTime() - start;
+            System.out.printf("run %d: exact %.2f us, prefix (10 results) %.2f us%n", run,
+                    exactNanos / 1_000.0 / LOOKUPS, prefixNanos / 1_000.0 / LOOKUPS);
+        }
+
+        // Each prefix lookup now has one new title to sort in first.
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            index.add(title(count + i));
+            found += index.findPrefix(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)],
+                    10).length;
+        }
+        System.out.printf("add then prefix lookup, interleaved: %.2f us per pair%n",
+                (System.nanoTime() - start) / 1_000.0 / LOOKUPS);
+        sink = found;
+    }
+
+    // Titles are derived from their id, so a lookup can regenerate any title without storing it.
+    private static String title(int id) {
+
+        Random random = new Random(id * 0x9E3779B97F4A7C15L);
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                + WORDS[random.nextInt(WORDS.length)] + " " + id;
+    }
+}
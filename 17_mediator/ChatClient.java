@@ -1,11 +1,13 @@
+import java.util.concurrent.CountDownLatch;
+
 public class ChatClient {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
 
-        ChatMediator mediator = new ChatMediatorImpl();
+        ChatMediatorImpl mediator = new ChatMediatorImpl();
 
         User user1 = new UserImpl(mediator, "Alice");
-        User user2 = new UserImpl(mediator, "Bob");
+        UserImpl user2 = new UserImpl(mediator, "Bob");
         User user3 = new UserImpl(mediator, "Charlie");
 
         mediator.addUser(user1);
@@ -13,5 +15,78 @@ public class ChatClient {
         mediator.addUser(user3);
 
         user1.send("Hi everyone!");
+        mediator.flush();
+
+        mediator.join("books", user2);
+        mediator.join("books", user3);
+        user2.sendTo("books", "Anyone read Dune?");
+
+        // Delivery is asynchronous, so wait for it before reading the metrics and exiting.
+        mediator.flush();
+        for (MailboxStats stats : mediator.getMailboxStats()) {
+            System.out.println(stats);
+        }
+
+        mediator.removeUser(user3);
+        mediator.leave("books", user2);
+        System.out.println("Members of books after Charlie is removed and Bob leaves: "
+                + mediator.getMemberCount("books"));
+        mediator.close();
+
+        checkFlushDoesNotHang();
+    }
+
+    // flush() must come back when a receiver kills its mailbox, and after close().
+    private static void checkFlushDoesNotHang() throws InterruptedException {
+
+        ChatMediatorImpl mediator = new ChatMediatorImpl(16, ChatMediatorImpl.OverflowPolicy.BLOCK, 1);
+        User sender = new UserImpl(mediator, "Sender");
+        User broken = new UserImpl(mediator, "Broken") {
+            @Override
+            public void receive(String msg) {
+
+                throw new AssertionError("receive failed");
+            }
+        };
+        mediator.addUser(sender);
+        mediator.addUser(broken);
+        for (int i = 0; i < 100; i++) {
+            mediator.sendMessage("message " + i, sender);
+        }
+        mediator.flush();
+        if (mediator.getFailedDrainerCount() != 1) {
+            throw new IllegalStateException("Expected one failed drainer, got " + mediator.getFailedDrainerCount());
+        }
+
+        // Ignores interrupts, so close() cannot get its message delivered.
+        CountDownLatch release = new CountDownLatch(1);
+        User stuck = new UserImpl(mediator, "Stuck") {
+            @Override
+            public void receive(String msg) {
+
+                while (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        // Keep waiting.
+                    }
+                }
+            }
+        };
+        mediator.addUser(stuck);
+        mediator.sendMessage("never delivered", sender);
+        Thread.ofVirtual().start(mediator::close);
+        boolean flushed = false;
+        try {
+            mediator.flush();
+            flushed = true;
+        } catch (IllegalStateException e) {
+            System.out.println("flush() after close: " + e.getMessage());
+        } finally {
+            release.countDown();
+        }
+        if (flushed) {
+            throw new IllegalStateException("flush() returned with a message still pending");
+        }
     }
 }
@@ -2,4 +2,8 @@ public interface ChatMediator {
 
     void sendMessage(String msg, User user);
     void addUser(User user);
+    void removeUser(User user);
+    void join(String room, User user);
+    void leave(String room, User user);
+    void sendMessage(String room, String msg, User user);
 }
@@ -1,27 +1,546 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
-public class ChatMediatorImpl implements ChatMediator {
-    private List<User> users;
+// Delivers messages asynchronously, room by room. sendMessage only queues the message on the
+// shard that owns the room; the shard's dispatcher copies it into the bounded mailbox of every
+// other member, and each mailbox is drained by its own virtual thread, so a slow receiver only
+// delays itself.
+//
+// Rooms are spread over shards by name, and each shard has its own queue, dispatcher and
+// counters, so messages in rooms on different shards never contend. Dispatchers are virtual
+// threads, so every mediator shares the JVM's carrier threads instead of starting its own.
+// Every user added with addUser is in the LOBBY room, which is where sendMessage(msg, user) goes.
+// One room belongs to one shard, so a room with fewer than 2 * PARALLEL_FAN_OUT_MEMBERS members
+// is fanned out by a single thread; above that its shard splits each message over several. A
+// room exists while it has members: the last one to leave removes it.
+public class ChatMediatorImpl implements ChatMediator, AutoCloseable {
+
+    // What the dispatcher does when a user's mailbox is full.
+    public enum OverflowPolicy {
+        // Discard the new message for that user.
+        DROP_NEWEST,
+        // Discard the oldest waiting message to make room.
+        DROP_OLDEST,
+        // Wait for room; a full mailbox then holds up delivery to everyone on the shard.
+        BLOCK
+    }
+
+    public static final String LOBBY = "lobby";
+
+    private static final int DEFAULT_MAILBOX_CAPACITY = 1024;
+    private static final int DISPATCH_QUEUE_CAPACITY = 65536;
+    // Members each thread takes when a large room's fan-out is split.
+    private static final int PARALLEL_FAN_OUT_MEMBERS = 4096;
+    private static final int FAN_OUT_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final Mailbox[] NO_MEMBERS = new Mailbox[0];
+
+    private final Map<User, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private final Shard[] shards;
+    private final int mailboxCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicLong failedDrainers = new AtomicLong();
+    private volatile Throwable dispatcherFailure;
+    private volatile boolean closed = false;
 
     public ChatMediatorImpl() {
 
-        this.users = new ArrayList<>();
+        this(DEFAULT_MAILBOX_CAPACITY, OverflowPolicy.DROP_OLDEST, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ChatMediatorImpl(int mailboxCapacity, OverflowPolicy overflowPolicy) {
+
+        this(mailboxCapacity, overflowPolicy, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ChatMediatorImpl(int mailboxCapacity, OverflowPolicy overflowPolicy, int shardCount) {
+
+        if (mailboxCapacity <= 0) {
+            throw new IllegalArgumentException("mailboxCapacity must be positive: " + mailboxCapacity);
+        }
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        this.mailboxCapacity = mailboxCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new Shard(i);
+        }
     }
 
     @Override
     public void sendMessage(String msg, User user) {
 
-        for (User u : this.users) {
-            if (u != user) {
-                u.receive(msg);
-            }
+        sendMessage(LOBBY, msg, user);
+    }
+
+    // Returns as soon as the message is queued. Blocks only if the room's shard is a full
+    // DISPATCH_QUEUE_CAPACITY messages behind. Messages to a room without members go nowhere.
+    @Override
+    public void sendMessage(String room, String msg, User user) {
+
+        if (this.closed) {
+            throw new IllegalStateException("Mediator is closed");
+        }
+        if (this.dispatcherFailure != null) {
+            throw new IllegalStateException("A dispatcher has died", this.dispatcherFailure);
         }
+        Room target = this.rooms.get(room);
+        if (target == null) {
+            return;
+        }
+        target.shard.submit(new Delivery(msg, user, target, System.nanoTime()));
     }
 
     @Override
     public void addUser(User user) {
 
-        this.users.add(user);
+        join(LOBBY, user);
+    }
+
+    // Stops the user's mailbox and takes them out of every room. Messages still waiting for them
+    // are dropped, so flush() does not wait on them.
+    @Override
+    public void removeUser(User user) {
+
+        Mailbox mailbox = this.mailboxes.remove(user);
+        if (mailbox == null) {
+            return;
+        }
+        mailbox.removed = true;
+        for (Room room : mailbox.rooms) {
+            room.remove(mailbox);
+        }
+        mailbox.drainer.interrupt();
+    }
+
+    // Retries when it races with the room emptying or the user being removed.
+    @Override
+    public void join(String room, User user) {
+
+        while (true) {
+            Mailbox mailbox = this.mailboxes.computeIfAbsent(user, Mailbox::new);
+            if (this.rooms.computeIfAbsent(room, Room::new).add(mailbox)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void leave(String room, User user) {
+
+        Mailbox mailbox = this.mailboxes.get(user);
+        Room target = this.rooms.get(room);
+        if (mailbox != null && target != null) {
+            target.remove(mailbox);
+        }
+    }
+
+    public int getShardCount() {
+
+        return this.shards.length;
+    }
+
+    public int getMemberCount(String room) {
+
+        Room target = this.rooms.get(room);
+        return target == null ? 0 : target.members.size;
+    }
+
+    // Mailboxes whose drainer died from an Error thrown by the user; they drop what they are sent.
+    public long getFailedDrainerCount() {
+
+        return this.failedDrainers.get();
+    }
+
+    // Blocks until every message sent so far has been delivered or dropped. Throws
+    // IllegalStateException if the mediator is closed or a dispatcher dies before then.
+    public void flush() throws InterruptedException {
+
+        for (Shard shard : this.shards) {
+            shard.awaitIdle();
+        }
+    }
+
+    public MailboxStats getMailboxStats(User user) {
+
+        Mailbox mailbox = this.mailboxes.get(user);
+        if (mailbox == null) {
+            throw new IllegalArgumentException("Unknown user " + user.getName());
+        }
+        return mailbox.stats();
+    }
+
+    public List<MailboxStats> getMailboxStats() {
+
+        List<MailboxStats> stats = new ArrayList<>(this.mailboxes.size());
+        for (Mailbox mailbox : this.mailboxes.values()) {
+            stats.add(mailbox.stats());
+        }
+        return stats;
+    }
+
+    // Stops delivery; messages still queued are discarded. Call flush() first to deliver them.
+    // If interrupted while waiting for the dispatchers, it still stops the mailboxes and keeps the
+    // interrupt status set.
+    @Override
+    public void close() {
+
+        this.closed = true;
+        for (Shard shard : this.shards) {
+            shard.dispatcher.interrupt();
+        }
+        try {
+            for (Shard shard : this.shards) {
+                shard.dispatcher.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Mailbox mailbox : this.mailboxes.values()) {
+            mailbox.drainer.interrupt();
+        }
+        wakeFlushers();
+    }
+
+    private void wakeFlushers() {
+
+        for (Shard shard : this.shards) {
+            synchronized (shard.idle) {
+                shard.idle.notifyAll();
+            }
+        }
+    }
+
+    private record Delivery(String message, User sender, Room room, long sentAt) {
+    }
+
+    // An immutable view of a room's members: slots below size are never written again, so a
+    // dispatcher can read a snapshot without locking.
+    private record Members(Mailbox[] mailboxes, int size) {
+    }
+
+    private class Room {
+        private final String name;
+        private final Shard shard;
+        private volatile Members members = new Members(NO_MEMBERS, 0);
+        // Set under the room's lock when its last member leaves and it is taken out of rooms.
+        private boolean removed = false;
+
+        private Room(String name) {
+
+            this.name = name;
+            int hash = name.hashCode();
+            this.shard = shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+        }
+
+        // Changes are serialized per room, but never block the dispatcher. A join writes the slot
+        // just past the published size, which no snapshot reads, so it only copies on growth.
+        // Returns false if the room was removed or the mailbox removed; the caller needs new ones.
+        private synchronized boolean add(Mailbox mailbox) {
+
+            if (this.removed) {
+                return false;
+            }
+            if (!mailbox.rooms.add(this)) {
+                return true;
+            }
+            // Checked after adding the room, so removeUser either sees the room or is seen here.
+            if (mailbox.removed) {
+                mailbox.rooms.remove(this);
+                removeIfEmpty();
+                return false;
+            }
+            Members current = this.members;
+            Mailbox[] array = current.mailboxes;
+            if (current.size == array.length) {
+                array = Arrays.copyOf(array, Math.max(4, array.length * 2));
+            }
+            array[current.size] = mailbox;
+            this.members = new Members(array, current.size + 1);
+            return true;
+        }
+
+        // Leaving copies the members, since older snapshots may still be reading the array.
+        private synchronized void remove(Mailbox mailbox) {
+
+            if (!mailbox.rooms.remove(this)) {
+                return;
+            }
+            Members current = this.members;
+            Mailbox[] array = new Mailbox[Math.max(4, current.mailboxes.length)];
+            int size = 0;
+            for (int i = 0; i < current.size; i++) {
+                if (current.mailboxes[i] != mailbox) {
+                    array[size++] = current.mailboxes[i];
+                }
+            }
+            this.members = new Members(array, size);
+            removeIfEmpty();
+        }
+
+        // Called with the room's lock held.
+        private void removeIfEmpty() {
+
+            if (this.members.size == 0) {
+                this.removed = true;
+                rooms.remove(this.name, this);
+            }
+        }
+    }
+
+    private class Shard {
+        private final BlockingQueue<Delivery> queue = new ArrayBlockingQueue<>(DISPATCH_QUEUE_CAPACITY);
+        private final Thread dispatcher;
+        // Messages queued on this shard plus their copies waiting in mailboxes.
+        private final AtomicLong inFlight = new AtomicLong();
+        private final Object idle = new Object();
+
+        private Shard(int index) {
+
+            this.dispatcher = Thread.ofVirtual().name("chat-shard-" + index).start(this::dispatch);
+        }
+
+        private void submit(Delivery delivery) {
+
+            this.inFlight.incrementAndGet();
+            try {
+                this.queue.put(delivery);
+            } catch (InterruptedException e) {
+                done();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void dispatch() {
+
+            try {
+                while (true) {
+                    Delivery delivery = this.queue.take();
+                    Members members = delivery.room.members;
+                    int threads = Math.min(FAN_OUT_THREADS, members.size / PARALLEL_FAN_OUT_MEMBERS);
+                    if (threads > 1) {
+                        fanOutInParallel(delivery, members, threads);
+                    } else {
+                        fanOut(delivery, members, 0, members.size);
+                    }
+                    done();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException | Error e) {
+                // Nothing takes from this shard any more, so fail flush() and sendMessage instead.
+                System.err.println("Dispatcher " + this.dispatcher.getName() + " died: " + e);
+                dispatcherFailure = e;
+                wakeFlushers();
+            }
+        }
+
+        private void fanOut(Delivery delivery, Members members, int from, int to) throws InterruptedException {
+
+            for (int i = from; i < to; i++) {
+                Mailbox mailbox = members.mailboxes[i];
+                if (mailbox.user != delivery.sender) {
+                    mailbox.offer(delivery);
+                }
+            }
+        }
+
+        // Hands slices of the members to virtual threads and waits for all of them before the next
+        // message, so each member still gets the room's messages in order.
+        private void fanOutInParallel(Delivery delivery, Members members, int threads) throws InterruptedException {
+
+            Thread[] helpers = new Thread[threads - 1];
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            for (int t = 1; t < threads; t++) {
+                int from = (int) ((long) members.size * t / threads);
+                int to = (int) ((long) members.size * (t + 1) / threads);
+                helpers[t - 1] = Thread.ofVirtual().start(() -> {
+                    try {
+                        fanOut(delivery, members, from, to);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+            }
+            try {
+                fanOut(delivery, members, 0, members.size / threads);
+                for (Thread helper : helpers) {
+                    helper.join();
+                }
+            } catch (InterruptedException e) {
+                // close() interrupted the dispatcher; helpers blocked on full mailboxes stop too.
+                for (Thread helper : helpers) {
+                    helper.interrupt();
+                }
+                throw e;
+            }
+            Throwable thrown = failure.get();
+            if (thrown instanceof RuntimeException e) {
+                throw e;
+            }
+            if (thrown instanceof Error e) {
+                throw e;
+            }
+        }
+
+        private void awaitIdle() throws InterruptedException {
+
+            synchronized (this.idle) {
+                while (this.inFlight.get() != 0) {
+                    if (closed) {
+                        throw new IllegalStateException("Mediator was closed before all messages were delivered");
+                    }
+                    if (dispatcherFailure != null) {
+                        throw new IllegalStateException("A dispatcher has died", dispatcherFailure);
+                    }
+                    this.idle.wait();
+                }
+            }
+        }
+
+        private void done() {
+
+            if (this.inFlight.decrementAndGet() == 0) {
+                synchronized (this.idle) {
+                    this.idle.notifyAll();
+                }
+            }
+        }
+    }
+
+    private class Mailbox {
+        private final User user;
+        private final Set<Room> rooms = ConcurrentHashMap.newKeySet();
+        private final BlockingQueue<Delivery> queue = new ArrayBlockingQueue<>(mailboxCapacity);
+        private final Thread drainer;
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean removed = false;
+        // Written only by the drainer thread.
+        private volatile long delivered;
+        private volatile long totalLatencyNanos;
+        private volatile long maxLatencyNanos;
+
+        private Mailbox(User user) {
+
+            this.user = user;
+            this.drainer = Thread.ofVirtual().name("chat-mailbox-" + user.getName()).start(this::drain);
+        }
+
+        // Called by the dispatchers of every shard the user has rooms on.
+        private void offer(Delivery delivery) throws InterruptedException {
+
+            if (this.removed) {
+                return;
+            }
+            delivery.room.shard.inFlight.incrementAndGet();
+            switch (overflowPolicy) {
+                case DROP_NEWEST:
+                    if (!this.queue.offer(delivery)) {
+                        drop(delivery);
+                    }
+                    break;
+                case DROP_OLDEST:
+                    while (!this.queue.offer(delivery)) {
+                        Delivery oldest = this.queue.poll();
+                        if (oldest != null) {
+                            drop(oldest);
+                        }
+                    }
+                    break;
+                case BLOCK:
+                    this.queue.put(delivery);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown overflow policy " + overflowPolicy);
+            }
+            // The drainer may have stopped after the check above, leaving nobody to take it.
+            if (this.removed) {
+                discard();
+            }
+        }
+
+        private void drop(Delivery delivery) {
+
+            this.dropped.incrementAndGet();
+            delivery.room.shard.done();
+        }
+
+        private void discard() {
+
+            for (Delivery delivery = this.queue.poll(); delivery != null; delivery = this.queue.poll()) {
+                drop(delivery);
+            }
+        }
+
+        // Takes whatever has piled up in one go, so a busy mailbox costs one wake-up per batch.
+        private void drain() {
+
+            List<Delivery> batch = new ArrayList<>();
+            int next = 0;
+            try {
+                while (!this.removed) {
+                    next = 0;
+                    batch.add(this.queue.take());
+                    this.queue.drainTo(batch);
+                    for (; next < batch.size(); next++) {
+                        Delivery delivery = batch.get(next);
+                        if (this.removed) {
+                            drop(delivery);
+                        } else {
+                            deliver(delivery);
+                        }
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Error e) {
+                // The user's receive threw. Stop the mailbox as removeUser would, dropping the rest
+                // of the batch too, so flush() does not wait on messages nobody will take.
+                System.err.println("Mailbox of " + this.user.getName() + " stopped: " + e);
+                failedDrainers.incrementAndGet();
+                this.removed = true;
+                for (int i = next; i < batch.size(); i++) {
+                    drop(batch.get(i));
+                }
+                discard();
+            }
+            if (this.removed) {
+                discard();
+            }
+        }
+
+        private void deliver(Delivery delivery) {
+
+            try {
+                this.user.receive(delivery.message);
+            } catch (RuntimeException e) {
+                System.err.println("Delivery to " + this.user.getName() + " failed: " + e);
+            }
+            long latency = System.nanoTime() - delivery.sentAt;
+            this.totalLatencyNanos += latency;
+            this.maxLatencyNanos = Math.max(this.maxLatencyNanos, latency);
+            this.delivered++;
+            delivery.room.shard.done();
+        }
+
+        private MailboxStats stats() {
+
+            long delivered = this.delivered;
+            return new MailboxStats(this.user.getName(), delivered, this.dropped.get(), this.queue.size(),
+                    delivered == 0 ? 0 : this.totalLatencyNanos / delivered, this.maxLatencyNanos);
+        }
     }
 }
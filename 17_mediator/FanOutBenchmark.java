@@ -0,0 +1,100 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Many fast users and one slow one. Shows what sendMessage costs the sender, and that the slow
+// user falls behind (and drops messages) without delaying everyone else.
+public class FanOutBenchmark {
+    private static final int MESSAGES = 200;
+    private static final int SYNCHRONOUS_MESSAGES = 10;
+    private static final long SLOW_RECEIVE_MILLIS = 20;
+
+    // Pass a user count (e.g. 100000) to change the default of 10000.
+    public static void main(String[] args) throws InterruptedException {
+
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        for (ChatMediatorImpl.OverflowPolicy policy : new ChatMediatorImpl.OverflowPolicy[]{
+                ChatMediatorImpl.OverflowPolicy.DROP_OLDEST, ChatMediatorImpl.OverflowPolicy.DROP_NEWEST}) {
+            run(policy, users);
+        }
+    }
+
+    private static void run(ChatMediatorImpl.OverflowPolicy policy, int count) throws InterruptedException {
+
+        ChatMediatorImpl mediator = new ChatMediatorImpl(32, policy);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(new CountingUser(mediator, "user-" + i, 0));
+        }
+        User slow = new CountingUser(mediator, "slow", SLOW_RECEIVE_MILLIS);
+        users.add(slow);
+        users.forEach(mediator::addUser);
+        User sender = users.get(0);
+
+        // The previous mediator: the sender's thread calls every receiver in turn.
+        long start = System.nanoTime();
+        for (int i = 0; i < SYNCHRONOUS_MESSAGES; i++) {
+            for (User user : users) {
+                if (user != sender) {
+                    user.receive("message " + i);
+                }
+            }
+        }
+        long synchronousNanos = (System.nanoTime() - start) / SYNCHRONOUS_MESSAGES;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            mediator.sendMessage("message " + i, sender);
+        }
+        long sendNanos = System.nanoTime() - start;
+        mediator.flush();
+        long deliverNanos = System.nanoTime() - start;
+
+        long meanLatency = 0;
+        long maxLatency = 0;
+        for (int i = 1; i < count; i++) {
+            MailboxStats stats = mediator.getMailboxStats(users.get(i));
+            meanLatency += stats.meanLatencyNanos() / (count - 1);
+            maxLatency = Math.max(maxLatency, stats.maxLatencyNanos());
+        }
+        MailboxStats slowStats = mediator.getMailboxStats(slow);
+        System.out.printf("%s: %d messages to %,d users, %d cores%n", policy, MESSAGES, count + 1,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("  synchronous fan-out: %.2f ms per message%n", synchronousNanos / 1e6);
+        System.out.printf("  sendMessage: %.2f us per call; all delivered or dropped after %d ms%n",
+                sendNanos / 1_000.0 / MESSAGES, deliverNanos / 1_000_000);
+        System.out.printf("  fast users: mean latency %.1f ms, max %.1f ms%n", meanLatency / 1e6, maxLatency / 1e6);
+        System.out.printf("  slow user: delivered %d, dropped %d, mean latency %.1f ms%n", slowStats.delivered(),
+                slowStats.dropped(), slowStats.meanLatencyNanos() / 1e6);
+        mediator.close();
+    }
+
+    private static class CountingUser extends User {
+        private final long receiveMillis;
+        private long received;
+
+        private CountingUser(ChatMediator mediator, String name, long receiveMillis) {
+
+            super(mediator, name);
+            this.receiveMillis = receiveMillis;
+        }
+
+        @Override
+        public void send(String msg) {
+
+            this.mediator.sendMessage(msg, this);
+        }
+
+        @Override
+        public void receive(String msg) {
+
+            if (this.receiveMillis > 0) {
+                try {
+                    Thread.sleep(this.receiveMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            this.received++;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+// Delivery metrics of one user's mailbox. lag is the number of messages waiting in the mailbox;
+// latencies run from sendMessage to the end of the user's receive().
+public record MailboxStats(String user, long delivered, long dropped, int lag, long meanLatencyNanos,
+                           long maxLatencyNanos) {
+}
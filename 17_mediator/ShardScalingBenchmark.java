@@ -0,0 +1,124 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Many small rooms with their own members, messages spread over them by several senders.
+// Reports delivery throughput for an increasing number of shards, then for one large lobby,
+// which lives on a single shard whatever the shard count.
+public class ShardScalingBenchmark {
+    private static final int ROOMS = 256;
+    private static final int MEMBERS_PER_ROOM = 16;
+    private static final int SENDERS = 4;
+    private static final int MESSAGES_PER_SENDER = 50_000;
+    private static final int LOBBY_MEMBERS = 32_768;
+    private static final int LOBBY_MESSAGES = 200;
+
+    public static void main(String[] args) throws InterruptedException {
+
+        System.out.printf("%d rooms of %d members, %d senders x %,d messages, %d cores%n", ROOMS,
+                MEMBERS_PER_ROOM, SENDERS, MESSAGES_PER_SENDER, Runtime.getRuntime().availableProcessors());
+        for (int shards : new int[]{1, 2, 4, 8}) {
+            for (int run = 0; run < 2; run++) {
+                run(shards, run);
+            }
+        }
+
+        System.out.printf("%nLobby of %,d members, %d messages from one sender%n", LOBBY_MEMBERS, LOBBY_MESSAGES);
+        for (int run = 0; run < 2; run++) {
+            runLobby(run);
+        }
+    }
+
+    private static void runLobby(int run) throws InterruptedException {
+
+        ChatMediatorImpl mediator = new ChatMediatorImpl(LOBBY_MESSAGES, ChatMediatorImpl.OverflowPolicy.BLOCK);
+        User sender = null;
+        for (int member = 0; member < LOBBY_MEMBERS; member++) {
+            User user = new QuietUser(mediator, "member-" + member);
+            mediator.addUser(user);
+            if (sender == null) {
+                sender = user;
+            }
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < LOBBY_MESSAGES; i++) {
+            mediator.sendMessage("hello", sender);
+        }
+        mediator.flush();
+        long nanos = System.nanoTime() - begin;
+
+        long delivered = 0;
+        for (MailboxStats stats : mediator.getMailboxStats()) {
+            delivered += stats.delivered();
+        }
+        mediator.close();
+        System.out.printf("run %d: %,d deliveries in %d ms, %.2f M deliveries/s%n", run, delivered,
+                nanos / 1_000_000, delivered / (nanos / 1e9) / 1e6);
+    }
+
+    private static void run(int shards, int run) throws InterruptedException {
+
+        ChatMediatorImpl mediator = new ChatMediatorImpl(4096, ChatMediatorImpl.OverflowPolicy.BLOCK, shards);
+        List<User> senders = new ArrayList<>();
+        for (int room = 0; room < ROOMS; room++) {
+            for (int member = 0; member < MEMBERS_PER_ROOM; member++) {
+                User user = new QuietUser(mediator, "room-" + room + "-member-" + member);
+                mediator.join("room-" + room, user);
+                if (room == 0 && member < SENDERS) {
+                    senders.add(user);
+                }
+            }
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (User sender : senders) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < MESSAGES_PER_SENDER; i++) {
+                    mediator.sendMessage("room-" + random.nextInt(ROOMS), "hello", sender);
+                }
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        mediator.flush();
+        long nanos = System.nanoTime() - begin;
+
+        long delivered = 0;
+        for (MailboxStats stats : mediator.getMailboxStats()) {
+            delivered += stats.delivered();
+        }
+        mediator.close();
+        System.out.printf("%d shards, run %d: %,d deliveries in %d ms, %.2f M deliveries/s%n", shards, run,
+                delivered, nanos / 1_000_000, delivered / (nanos / 1e9) / 1e6);
+    }
+
+    private static class QuietUser extends User {
+
+        private QuietUser(ChatMediator mediator, String name) {
+
+            super(mediator, name);
+        }
+
+        @Override
+        public void send(String msg) {
+
+            this.mediator.sendMessage(msg, this);
+        }
+
+        @Override
+        public void receive(String msg) {
+        }
+    }
+}
@@ -8,6 +8,11 @@ public abstract class User {
         this.name = name;
     }
 
+    public String getName() {
+
+        return this.name;
+    }
+
     public abstract void send(String msg);
     public abstract void receive(String msg);
 }
@@ -13,6 +13,12 @@ public class UserImpl extends User {
         this.mediator.sendMessage(msg, this);
     }
 
+    public void sendTo(String room, String msg) {
+
+        System.out.println(this.name + ": Sending Message to " + room + " = " + msg);
+        this.mediator.sendMessage(room, msg, this);
+    }
+
     @Override
     public void receive(String msg) {
 